@@ -38,6 +38,10 @@ import javax.annotation.concurrent.Immutable;
 public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bounded {
     private final Bounds bounds;
     private final List<Paragraph> paragraphs;
+    /**
+     * Cached hash code, or 0 if not calculated yet, like in <code>String</code>.
+     */
+    private int hash;
 
     /**
      * Creates an area from the corresponding HOCR &lt;div&gt; tag
@@ -54,7 +58,7 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
                         paragraphs.add(new Paragraph(k));
                     }
                 }
-                Bounds b = Bounds.fromHocrTitleValue(tag.title);
+                Bounds b = TitleProperties.parseBounds(tag.title);
                 if (b == null) {
                     b = Bounds.ofAll(paragraphs);
                 }
@@ -88,11 +92,6 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
         bounds = b;
     }
 
-    private Area(Bounds b) {
-        paragraphs = new ArrayList<Paragraph>();
-        bounds = b;
-    }
-
     private Area(Void v, @Nonnull List<Paragraph> p) {
         paragraphs = p;
         bounds = Bounds.ofAll(paragraphs);
@@ -111,14 +110,23 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
      */
     @Nonnull
     public Area createBounded(@Nonnull Bounds rectangle) {
-        Area a = new Area(bounds.intersection(rectangle));
-        for (Paragraph p : paragraphs) {
+        List<Paragraph> paragraphList = paragraphs;
+        for (int i = 0; i < paragraphs.size(); i++) {
+            Paragraph p = paragraphs.get(i);
             Paragraph p2 = p.createBounded(rectangle);
+            if (paragraphList == paragraphs) {
+                if (p2 == p && !p2.isBlank()) continue;
+                paragraphList = new ArrayList<Paragraph>(paragraphs.subList(0, i));
+            }
             if (!p2.isBlank()) {
-                a.paragraphs.add(p2);
+                paragraphList.add(p2);
             }
         }
-        return a;
+        Bounds b = bounds.intersection(rectangle);
+        if (paragraphList == paragraphs && b == bounds) {
+            return this;
+        }
+        return new Area(null, paragraphList, b);
     }
 
     /**
@@ -216,7 +224,12 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
 
     @Override
     public int hashCode() {
-        return ObjectUtils.hashCodeMulti(paragraphs, bounds);
+        int h = hash;
+        if (h == 0) {
+            h = ObjectUtils.hashCodeMulti(paragraphs, bounds);
+            hash = h;
+        }
+        return h;
     }
 
     /**
@@ -235,16 +248,17 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
     /**
      * Creates a new area with all paragraphs modified by the given function.
      * Bounds are recalculated unless this area contains no paragraphs.
+     * If no paragraph and no bounds are changed, returns this area.
      * @param f paragraph-modifying function
      * @return modified area
      */
     @Nonnull
     public Area map(@Nonnull Function<Paragraph, Paragraph> f) {
-        List<Paragraph> paragraphList = CollectionUtils.listMap(paragraphs, f);
-        if(paragraphList.isEmpty()) {
-            return new Area(null, paragraphList, bounds);
+        List<Paragraph> paragraphList = CollectionUtils.listMapOrSame(paragraphs, f);
+        if (paragraphList.isEmpty()) {
+            return this;
         } else {
-            return new Area(null, paragraphList);
+            return withParagraphs(paragraphList);
         }
     }
 
@@ -253,22 +267,24 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
      * Bounds are recalculated unless this area contains no paragraphs;
      * If there are no paragraphs, the bounds of this area
      * are modified using the given function.
+     * If no bounds are changed, returns this area.
      * @param f bounds-modifying function
      * @return modified area
      */
     @Nonnull
     public Area mapBounds(@Nonnull final Function<Bounds,Bounds> f) {
-        List<Paragraph> paragraphList = CollectionUtils.listMap(paragraphs, new Function<Paragraph, Paragraph>() {
+        List<Paragraph> paragraphList = CollectionUtils.listMapOrSame(paragraphs, new Function<Paragraph, Paragraph>() {
             @Nullable
             public Paragraph apply(@Nullable Paragraph paragraph) {
                 assert paragraph != null;
                 return paragraph.mapBounds(f);
             }
         });
-        if(paragraphList.isEmpty()) {
-            return new Area(null, paragraphList, f.apply(bounds));
+        if (paragraphList.isEmpty()) {
+            Bounds b = f.apply(bounds);
+            return ObjectUtils.equals(b, bounds) ? this : new Area(null, paragraphList, b);
         } else {
-            return new Area(null, paragraphList);
+            return withParagraphs(paragraphList);
         }
     }
 
@@ -297,4 +313,13 @@ public class Area extends DelegatingUnmodifiableList<Paragraph> implements Bound
         }
         return new Area(null, ps, bounds.translate(dx,dy));
     }
+
+    @Nonnull
+    private Area withParagraphs(@Nonnull List<Paragraph> paragraphList) {
+        Bounds b = Bounds.ofAll(paragraphList);
+        if (paragraphList == paragraphs && ObjectUtils.equals(b, bounds)) {
+            return this;
+        }
+        return new Area(null, paragraphList, b);
+    }
 }
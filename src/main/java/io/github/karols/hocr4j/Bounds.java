@@ -45,24 +45,11 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      *
      * @param titleValue value of the <code>title</code> attribute
      * @return bounds found in the value, or <code>null</code> if none found
+     * @see TitleProperties
      */
     @Nullable
     public static Bounds fromHocrTitleValue(@Nonnull String titleValue) {
-        int defStart = titleValue.indexOf("bbox ");
-        if (defStart < 0) {
-            return null;
-        }
-        titleValue = titleValue.substring(defStart);
-        int descEnd = titleValue.indexOf(';');
-        if (descEnd >= 0) {
-            titleValue = titleValue.substring(0, descEnd);
-        }
-        String[] parts = titleValue.split(" ");
-        int left = Integer.parseInt(parts[1]);
-        int top = Integer.parseInt(parts[2]);
-        int right = Integer.parseInt(parts[3]);
-        int bottom = Integer.parseInt(parts[4]);
-        return new Bounds(left, top, right, bottom);
+        return TitleProperties.parseBounds(titleValue);
     }
 
     /**
@@ -200,11 +187,7 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      */
     @Nullable
     public static Bounds ofAll(@Nonnull Collection<? extends Bounded> thingies) {
-        Bounds acc = null;
-        for (Bounded thingy : thingies) {
-            acc = nullSafeUnion(acc, thingy.getBounds());
-        }
-        return acc;
+        return new BoundsAccumulator().addAll(thingies).getBounds();
     }
 
     /**
@@ -221,11 +204,11 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      */
     @Nullable
     public static Bounds ofAll(@Nonnull Bounded... thingies) {
-        Bounds acc = thingies[0].getBounds();
+        BoundsAccumulator acc = new BoundsAccumulator();
         for (Bounded thingy : thingies) {
-            acc = acc.union(thingy.getBounds());
+            acc.add(thingy.getBounds());
         }
-        return acc;
+        return acc.getBounds();
     }
 
     /**
@@ -243,11 +226,11 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      */
     @Nullable
     public static <T, B extends Bounded> Bounds ofAllLeft(@Nonnull Collection<Pair<B, T>> thingies) {
-        Bounds acc = null;
+        BoundsAccumulator acc = new BoundsAccumulator();
         for (Pair<B, T> thingy : thingies) {
-            acc = nullSafeUnion(acc, thingy.getLeft().getBounds());
+            acc.add(thingy.getLeft().getBounds());
         }
-        return acc;
+        return acc.getBounds();
     }
 
     /**
@@ -265,11 +248,11 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      */
     @Nullable
     public static <T, B extends Bounded> Bounds ofAllRight(@Nonnull Collection<Pair<T, B>> thingies) {
-        Bounds acc = null;
+        BoundsAccumulator acc = new BoundsAccumulator();
         for (Pair<T, B> thingy : thingies) {
-            acc = nullSafeUnion(acc, thingy.getRight().getBounds());
+            acc.add(thingy.getRight().getBounds());
         }
-        return acc;
+        return acc.getBounds();
     }
 
     private final int bottom;
@@ -621,6 +604,7 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      * <br/>
      * Interprets <code>null</code> as empty bounds, returning <code>null</code>.
      * May return bounds with negative width or height. It may be fixed later.
+     * If one of the bounds contains the other, the contained instance is returned.
      * <br/>
      * An intesection of two bounding rectangles
      * is the largest bounding rectangle that is contained by both the input rectangles.
@@ -635,9 +619,12 @@ public class Bounds implements Comparable<Bounds>, Bounded {
         if (b == null) {
             return null;
         }
-        if (b == this) {
+        if (b == this || in(b)) {
             return this;
         }
+        if (b.in(this)) {
+            return b;
+        }
         return new Bounds(max(left, b.left), max(top, b.top), min(right, b.right), min(bottom, b.bottom));
     }
 
@@ -654,10 +641,24 @@ public class Bounds implements Comparable<Bounds>, Bounded {
      * @see Bounds#touches(Bounds)
      */
     public boolean intersects(@Nullable Bounds b) {
-        Bounds intersection = intersection(b);
-        boolean operandsZeroArea = hasZeroArea() || b==null || b.hasZeroArea();
-        return intersection != null && !intersection.isEmpty() &&
-                (operandsZeroArea || !intersection.hasZeroArea());
+        return b != null && intersects(left, top, right, bottom, b.left, b.top, b.right, b.bottom);
+    }
+
+    /**
+     * Checks if two rectangles intersect, the same way as <code>intersects(Bounds)</code>,
+     * without creating their intersection.
+     */
+    static boolean intersects(int l1, int t1, int r1, int b1, int l2, int t2, int r2, int b2) {
+        int l = max(l1, l2);
+        int t = max(t1, t2);
+        int r = min(r1, r2);
+        int b = min(b1, b2);
+        if (l > r || t > b) {
+            // empty intersection
+            return false;
+        }
+        boolean operandsZeroArea = l1 >= r1 || t1 >= b1 || l2 >= r2 || t2 >= b2;
+        return operandsZeroArea || (l < r && t < b);
     }
 
     /**
@@ -0,0 +1,138 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j;
+
+import java.util.Collection;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static java.lang.Math.*;
+
+/**
+ * Computes the union of any number of rectangles
+ * without creating a new <code>Bounds</code> object for each one added.
+ * <br/>
+ * <code>null</code> is interpreted as empty bounds, like in <code>Bounds.nullSafeUnion</code>.
+ * If the union is equal to one of the added bounds, that instance is returned instead of a new one.
+ * An accumulator can be reused after calling <code>reset</code>.
+ *
+ * @see Bounds#ofAll(Collection)
+ */
+@NotThreadSafe
+public final class BoundsAccumulator {
+
+    private int bottom;
+    private boolean empty = true;
+    private int left;
+    /**
+     * Added bounds equal to the union so far, or <code>null</code> if none is.
+     */
+    private Bounds result;
+    private int right;
+    private int top;
+
+    /**
+     * Adds the given bounds to the union.
+     *
+     * @param b bounds, or <code>null</code>
+     * @return this accumulator
+     */
+    @Nonnull
+    public BoundsAccumulator add(@Nullable Bounds b) {
+        if (b == null) return this;
+        add(b.getLeft(), b.getTop(), b.getRight(), b.getBottom());
+        if (left == b.getLeft() && top == b.getTop() && right == b.getRight() && bottom == b.getBottom()) {
+            result = b;
+        }
+        return this;
+    }
+
+    /**
+     * Adds the given rectangle to the union.
+     *
+     * @param l x coordinate of the left edge
+     * @param t y coordinate of the top edge
+     * @param r x coordinate of the right edge
+     * @param b y coordinate of the bottom edge
+     * @return this accumulator
+     */
+    @Nonnull
+    public BoundsAccumulator add(int l, int t, int r, int b) {
+        if (empty) {
+            left = l;
+            top = t;
+            right = r;
+            bottom = b;
+            empty = false;
+            result = null;
+        } else if (l < left || t < top || r > right || b > bottom) {
+            left = min(left, l);
+            top = min(top, t);
+            right = max(right, r);
+            bottom = max(bottom, b);
+            result = null;
+        }
+        return this;
+    }
+
+    /**
+     * Adds the bounds of all the given objects to the union.
+     *
+     * @param thingies collection of bounded objects
+     * @return this accumulator
+     */
+    @Nonnull
+    public BoundsAccumulator addAll(@Nonnull Collection<? extends Bounded> thingies) {
+        for (Bounded thingy : thingies) {
+            add(thingy.getBounds());
+        }
+        return this;
+    }
+
+    /**
+     * Returns the union of all bounds added since creation or the last reset.
+     *
+     * @return union of bounds, or <code>null</code> if nothing but <code>null</code> has been added
+     */
+    @Nullable
+    public Bounds getBounds() {
+        if (empty) return null;
+        if (result == null) {
+            result = new Bounds(left, top, right, bottom);
+        }
+        return result;
+    }
+
+    /**
+     * Checks if nothing but <code>null</code> has been added since creation or the last reset.
+     *
+     * @return <code>true</code> if the union is <code>null</code>
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Removes all added bounds.
+     *
+     * @return this accumulator
+     */
+    @Nonnull
+    public BoundsAccumulator reset() {
+        empty = true;
+        result = null;
+        return this;
+    }
+}
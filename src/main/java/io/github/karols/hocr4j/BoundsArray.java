@@ -0,0 +1,383 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A list of rectangles packed into a single <code>int</code> array,
+ * with operations on all of them at once that do not create a <code>Bounds</code> object per rectangle.
+ * <br/>
+ * The rectangles can be <code>null</code>, and the operations treat <code>null</code> the same way
+ * as the corresponding methods of <code>Bounds</code> do.
+ * Operations selecting rectangles return the set of their indices as a <code>BitSet</code>.
+ *
+ * @see Bounds
+ */
+@Immutable
+public final class BoundsArray {
+
+    /**
+     * Left, top, right and bottom coordinate of each rectangle.
+     */
+    private final int[] coordinates;
+    private final BitSet nulls;
+    private final int size;
+
+    private BoundsArray(int size, int[] coordinates, BitSet nulls) {
+        this.size = size;
+        this.coordinates = coordinates;
+        this.nulls = nulls;
+    }
+
+    /**
+     * Creates an array of bounds of the given objects, in iteration order.
+     *
+     * @param thingies collection of bounded objects
+     * @return array of bounds
+     */
+    @Nonnull
+    public static BoundsArray of(@Nonnull Collection<? extends Bounded> thingies) {
+        int[] coordinates = new int[4 * thingies.size()];
+        BitSet nulls = new BitSet();
+        int i = 0;
+        for (Bounded thingy : thingies) {
+            Bounds b = thingy.getBounds();
+            if (b == null) {
+                nulls.set(i);
+            } else {
+                coordinates[4 * i] = b.getLeft();
+                coordinates[4 * i + 1] = b.getTop();
+                coordinates[4 * i + 2] = b.getRight();
+                coordinates[4 * i + 3] = b.getBottom();
+            }
+            i++;
+        }
+        return new BoundsArray(i, coordinates, nulls);
+    }
+
+    /**
+     * Creates an array of the given bounds.
+     *
+     * @param bounds bounds, possibly <code>null</code>
+     * @return array of bounds
+     */
+    @Nonnull
+    public static BoundsArray of(@Nonnull Bounds... bounds) {
+        int[] coordinates = new int[4 * bounds.length];
+        BitSet nulls = new BitSet();
+        for (int i = 0; i < bounds.length; i++) {
+            Bounds b = bounds[i];
+            if (b == null) {
+                nulls.set(i);
+            } else {
+                coordinates[4 * i] = b.getLeft();
+                coordinates[4 * i + 1] = b.getTop();
+                coordinates[4 * i + 2] = b.getRight();
+                coordinates[4 * i + 3] = b.getBottom();
+            }
+        }
+        return new BoundsArray(bounds.length, coordinates, nulls);
+    }
+
+    /**
+     * Finds the rectangles that the given rectangle cuts.
+     *
+     * @param rectangle bounds that may cut the rectangles
+     * @return indices of all rectangles <code>r</code> such that <code>rectangle.cuts(r)</code>
+     * @see Bounds#cuts(Bounds)
+     */
+    @Nonnull
+    public BitSet cutBy(@Nonnull Bounds rectangle) {
+        BitSet result = new BitSet();
+        for (int i = 0; i < size; i++) {
+            if (isCutBy(i, rectangle)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final BoundsArray other = (BoundsArray) obj;
+        return size == other.size && nulls.equals(other.nulls) && Arrays.equals(coordinates, other.coordinates);
+    }
+
+    /**
+     * Returns the rectangle with the given index.
+     *
+     * @param index index of the rectangle
+     * @return bounds, or <code>null</code> if the rectangle is <code>null</code>
+     */
+    @Nullable
+    public Bounds get(int index) {
+        checkIndex(index);
+        if (nulls.get(index)) return null;
+        return new Bounds(coordinates[4 * index], coordinates[4 * index + 1],
+                coordinates[4 * index + 2], coordinates[4 * index + 3]);
+    }
+
+    /**
+     * Returns the y coordinate of the bottom edge of the rectangle with the given index.
+     *
+     * @param index index of a rectangle that is not <code>null</code>
+     * @return y coordinate of the bottom edge
+     */
+    public int getBottom(int index) {
+        checkNotNull(index);
+        return coordinates[4 * index + 3];
+    }
+
+    /**
+     * Returns the x coordinate of the left edge of the rectangle with the given index.
+     *
+     * @param index index of a rectangle that is not <code>null</code>
+     * @return x coordinate of the left edge
+     */
+    public int getLeft(int index) {
+        checkNotNull(index);
+        return coordinates[4 * index];
+    }
+
+    /**
+     * Returns the x coordinate of the right edge of the rectangle with the given index.
+     *
+     * @param index index of a rectangle that is not <code>null</code>
+     * @return x coordinate of the right edge
+     */
+    public int getRight(int index) {
+        checkNotNull(index);
+        return coordinates[4 * index + 2];
+    }
+
+    /**
+     * Returns the y coordinate of the top edge of the rectangle with the given index.
+     *
+     * @param index index of a rectangle that is not <code>null</code>
+     * @return y coordinate of the top edge
+     */
+    public int getTop(int index) {
+        checkNotNull(index);
+        return coordinates[4 * index + 1];
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * nulls.hashCode() + Arrays.hashCode(coordinates);
+    }
+
+    /**
+     * Finds the rectangles contained within the given rectangle.
+     * Interprets <code>null</code> as empty bounds, so <code>null</code> rectangles are never found.
+     *
+     * @param rectangle bounding rectangle
+     * @return indices of all rectangles <code>r</code> such that <code>r.in(rectangle)</code>
+     * @see Bounds#in(Bounds)
+     */
+    @Nonnull
+    public BitSet in(@Nullable Bounds rectangle) {
+        BitSet result = new BitSet();
+        if (rectangle == null) return result;
+        int l = rectangle.getLeft();
+        int t = rectangle.getTop();
+        int r = rectangle.getRight();
+        int b = rectangle.getBottom();
+        for (int i = 0; i < size; i++) {
+            if (nulls.get(i)) continue;
+            if (coordinates[4 * i] >= l && coordinates[4 * i + 2] <= r
+                    && coordinates[4 * i + 1] >= t && coordinates[4 * i + 3] <= b) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the rectangles intersecting the given rectangle.
+     * Interprets <code>null</code> as empty bounds, so <code>null</code> rectangles are never found.
+     *
+     * @param rectangle other bounds
+     * @return indices of all rectangles <code>r</code> such that <code>r.intersects(rectangle)</code>
+     * @see Bounds#intersects(Bounds)
+     */
+    @Nonnull
+    public BitSet intersecting(@Nullable Bounds rectangle) {
+        BitSet result = new BitSet();
+        if (rectangle == null) return result;
+        int l = rectangle.getLeft();
+        int t = rectangle.getTop();
+        int r = rectangle.getRight();
+        int b = rectangle.getBottom();
+        for (int i = 0; i < size; i++) {
+            if (nulls.get(i)) continue;
+            if (Bounds.intersects(coordinates[4 * i], coordinates[4 * i + 1], coordinates[4 * i + 2], coordinates[4 * i + 3],
+                    l, t, r, b)) {
+                result.set(i);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks if the given rectangle cuts the rectangle with the given index,
+     * without creating the latter.
+     *
+     * @param index     index of the rectangle
+     * @param rectangle bounds that may cut the rectangle
+     * @return the same as <code>rectangle.cuts(get(index))</code>
+     * @see Bounds#cuts(Bounds)
+     */
+    public boolean isCutBy(int index, @Nonnull Bounds rectangle) {
+        checkIndex(index);
+        if (nulls.get(index)) return false;
+        int l = rectangle.getLeft();
+        int t = rectangle.getTop();
+        int r = rectangle.getRight();
+        int b = rectangle.getBottom();
+        int il = coordinates[4 * index];
+        int it = coordinates[4 * index + 1];
+        int ir = coordinates[4 * index + 2];
+        int ib = coordinates[4 * index + 3];
+        return Bounds.intersects(l, t, r, b, il, it, ir, ib)
+                && !(l >= il && r <= ir && t >= it && b <= ib)
+                && !(il >= l && ir <= r && it >= t && ib <= b);
+    }
+
+    /**
+     * Checks if the rectangle with the given index is <code>null</code>.
+     *
+     * @param index index of the rectangle
+     * @return <code>true</code> if the rectangle is <code>null</code>
+     */
+    public boolean isNull(int index) {
+        checkIndex(index);
+        return nulls.get(index);
+    }
+
+    /**
+     * Scales all rectangles, the same way as <code>Bounds.scale</code>.
+     *
+     * @param scale scale of the new bounds
+     * @return array of scaled bounds
+     * @see Bounds#scale(double)
+     */
+    @Nonnull
+    public BoundsArray scale(double scale) {
+        int[] result = new int[coordinates.length];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = (int) Math.round(coordinates[i] * scale);
+        }
+        return new BoundsArray(size, result, nulls);
+    }
+
+    /**
+     * Returns the number of rectangles.
+     *
+     * @return number of rectangles
+     */
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(get(i));
+        }
+        return sb.append("]").toString();
+    }
+
+    /**
+     * Translates all rectangles by the given vector.
+     *
+     * @param dx x displacement
+     * @param dy y displacement
+     * @return array of translated bounds
+     * @see Bounds#translate(int, int)
+     */
+    @Nonnull
+    public BoundsArray translate(int dx, int dy) {
+        int[] result = new int[coordinates.length];
+        for (int i = 0; i < result.length; i += 2) {
+            result[i] = coordinates[i] + dx;
+            result[i + 1] = coordinates[i + 1] + dy;
+        }
+        return new BoundsArray(size, result, nulls);
+    }
+
+    /**
+     * The smallest rectangle containing all rectangles.
+     * Interprets <code>null</code> as empty bounds.
+     *
+     * @return union of all rectangles, or <code>null</code> if there are no rectangles other than <code>null</code>
+     * @see Bounds#ofAll(Collection)
+     */
+    @Nullable
+    public Bounds union() {
+        BitSet all = new BitSet();
+        all.set(0, size);
+        return union(all);
+    }
+
+    /**
+     * The smallest rectangle containing the rectangles with the given indices.
+     * Interprets <code>null</code> as empty bounds.
+     *
+     * @param indices indices of rectangles
+     * @return union of the rectangles, or <code>null</code> if there are no rectangles other than <code>null</code>
+     * @see Bounds#ofAll(Collection)
+     */
+    @Nullable
+    public Bounds union(@Nonnull BitSet indices) {
+        return addTo(new BoundsAccumulator(), indices).getBounds();
+    }
+
+    /**
+     * Adds the rectangles with the given indices to the accumulator.
+     *
+     * @param accumulator accumulator
+     * @param indices     indices of rectangles
+     * @return the accumulator
+     */
+    @Nonnull
+    public BoundsAccumulator addTo(@Nonnull BoundsAccumulator accumulator, @Nonnull BitSet indices) {
+        for (int i = indices.nextSetBit(0); i >= 0 && i < size; i = indices.nextSetBit(i + 1)) {
+            if (nulls.get(i)) continue;
+            accumulator.add(coordinates[4 * i], coordinates[4 * i + 1], coordinates[4 * i + 2], coordinates[4 * i + 3]);
+        }
+        return accumulator;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(String.valueOf(index));
+    }
+
+    private void checkNotNull(int index) {
+        if (isNull(index)) throw new NullPointerException("Bounds at " + index + " are null");
+    }
+}
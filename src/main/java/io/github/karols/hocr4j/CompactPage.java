@@ -0,0 +1,473 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.RandomAccess;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * A page stored in a few flat arrays instead of a tree of objects,
+ * for keeping large numbers of pages in memory.
+ * <br/>
+ * The bounds of the page and of all its areas, paragraphs, lines and words are packed in one <code>int</code> array,
+ * the texts of all words are concatenated into one string,
+ * bold and italic flags are kept in bit sets,
+ * and each area, paragraph and line is stored as the range of indices of its children.
+ * Areas, paragraphs, lines and words are numbered consecutively in document order, starting from 0,
+ * except for {@link #getAllLines()} and {@link #getLineString(int)},
+ * which use the reading order of {@link Page#getAllLines()}.
+ * <br/>
+ * Words, lines and the other elements are created on demand when requested,
+ * so they are equal to the ones of the original page, but they are new objects on every call.
+ * Information that is not needed to create them is available without creating them.
+ */
+@Immutable
+public final class CompactPage implements Bounded {
+
+    /**
+     * Index after the last paragraph of each area.
+     */
+    private final int[] areaEnds;
+    private final BitSet bold;
+    /**
+     * Bounds of the page, the areas, the paragraphs, the lines and the words, in this order,
+     * as four consecutive numbers: left, top, right and bottom.
+     */
+    private final int[] bounds;
+    /**
+     * Index of each line in the order of {@link Page#getAllLines()}.
+     */
+    private final int[] flowOrder;
+    private final BitSet italic;
+    /**
+     * Index after the last word of each line.
+     */
+    private final int[] lineEnds;
+    /**
+     * Elements without bounds, indexed like the bounds.
+     */
+    private final BitSet nullBounds;
+    private final int pageNo;
+    /**
+     * Index after the last line of each paragraph.
+     */
+    private final int[] paragraphEnds;
+    private final String text;
+    /**
+     * Index in the text after the last character of each word.
+     */
+    private final int[] textEnds;
+
+    private CompactPage(int pageNo, int[] areaEnds, int[] paragraphEnds, int[] lineEnds, int[] textEnds,
+                        String text, int[] bounds, BitSet nullBounds, BitSet bold, BitSet italic,
+                        int[] flowOrder) {
+        this.pageNo = pageNo;
+        this.areaEnds = areaEnds;
+        this.paragraphEnds = paragraphEnds;
+        this.lineEnds = lineEnds;
+        this.textEnds = textEnds;
+        this.text = text;
+        this.bounds = bounds;
+        this.nullBounds = nullBounds;
+        this.bold = bold;
+        this.italic = italic;
+        this.flowOrder = flowOrder;
+    }
+
+    /**
+     * Creates a compact copy of the given page.
+     *
+     * @param page page
+     * @return compact page
+     */
+    @Nonnull
+    public static CompactPage of(@Nonnull Page page) {
+        int areaCount = page.size();
+        int paragraphCount = 0;
+        int lineCount = 0;
+        int wordCount = 0;
+        int textLength = 0;
+        for (Area a : page) {
+            paragraphCount += a.size();
+            for (Paragraph p : a) {
+                lineCount += p.size();
+                for (Line l : p) {
+                    wordCount += l.size();
+                    for (Word w : l) {
+                        textLength += w.getText().length();
+                    }
+                }
+            }
+        }
+        int[] areaEnds = new int[areaCount];
+        int[] paragraphEnds = new int[paragraphCount];
+        int[] lineEnds = new int[lineCount];
+        int[] textEnds = new int[wordCount];
+        int[] bounds = new int[4 * (1 + areaCount + paragraphCount + lineCount + wordCount)];
+        BitSet nullBounds = new BitSet();
+        BitSet bold = new BitSet();
+        BitSet italic = new BitSet();
+        StringBuilder text = new StringBuilder(textLength);
+        final List<Line> lines = new ArrayList<Line>(lineCount);
+        int areaIndex = 0;
+        int paragraphIndex = 0;
+        int lineIndex = 0;
+        int wordIndex = 0;
+        int paragraphNode = 1 + areaCount;
+        int lineNode = paragraphNode + paragraphCount;
+        int wordNode = lineNode + lineCount;
+        putBounds(bounds, nullBounds, 0, page.getBounds());
+        for (Area a : page) {
+            putBounds(bounds, nullBounds, 1 + areaIndex, a.getBounds());
+            for (Paragraph p : a) {
+                putBounds(bounds, nullBounds, paragraphNode + paragraphIndex, p.getBounds());
+                for (Line l : p) {
+                    lines.add(l);
+                    putBounds(bounds, nullBounds, lineNode + lineIndex, l.getBounds());
+                    for (Word w : l) {
+                        putBounds(bounds, nullBounds, wordNode + wordIndex, w.getBounds());
+                        text.append(w.getText());
+                        if (w.isBold()) bold.set(wordIndex);
+                        if (w.isItalic()) italic.set(wordIndex);
+                        textEnds[wordIndex++] = text.length();
+                    }
+                    lineEnds[lineIndex++] = wordIndex;
+                }
+                paragraphEnds[paragraphIndex++] = lineIndex;
+            }
+            areaEnds[areaIndex++] = paragraphIndex;
+        }
+        // sorted the same way as in Page.getAllLines, so that lines in the same place end up in the same order
+        Integer[] order = new Integer[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            order[i] = i;
+        }
+        final Comparator<Bounded> comparator = OrderedBy.flowOrder();
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer i1, Integer i2) {
+                return comparator.compare(lines.get(i1), lines.get(i2));
+            }
+        });
+        int[] flowOrder = new int[lineCount];
+        for (int i = 0; i < lineCount; i++) {
+            flowOrder[i] = order[i];
+        }
+        return new CompactPage(page.getPageNo(), areaEnds, paragraphEnds, lineEnds, textEnds,
+                text.toString(), bounds, nullBounds, bold, italic, flowOrder);
+    }
+
+    private static void putBounds(int[] bounds, BitSet nullBounds, int node, @Nullable Bounds b) {
+        if (b == null) {
+            nullBounds.set(node);
+            return;
+        }
+        bounds[4 * node] = b.getLeft();
+        bounds[4 * node + 1] = b.getTop();
+        bounds[4 * node + 2] = b.getRight();
+        bounds[4 * node + 3] = b.getBottom();
+    }
+
+    private static int start(int[] ends, int index) {
+        return index == 0 ? 0 : ends[index - 1];
+    }
+
+    private void checkWordIndex(int index) {
+        if (index < 0 || index >= textEnds.length) throw new IndexOutOfBoundsException(String.valueOf(index));
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final CompactPage other = (CompactPage) obj;
+        return pageNo == other.pageNo
+                && text.equals(other.text)
+                && Arrays.equals(textEnds, other.textEnds)
+                && Arrays.equals(lineEnds, other.lineEnds)
+                && Arrays.equals(paragraphEnds, other.paragraphEnds)
+                && Arrays.equals(areaEnds, other.areaEnds)
+                && Arrays.equals(bounds, other.bounds)
+                && nullBounds.equals(other.nullBounds)
+                && bold.equals(other.bold)
+                && italic.equals(other.italic);
+    }
+
+    /**
+     * Returns all lines of this page, created on demand,
+     * in the natural left-to-right reading order, like {@link Page#getAllLines()}.
+     *
+     * @return list of lines
+     * @see Page#getAllLines()
+     */
+    @Nonnull
+    public List<Line> getAllLines() {
+        return new Elements<Line>(lineEnds.length) {
+            @Override
+            public Line get(int index) {
+                return getLine(flowOrder[index]);
+            }
+        };
+    }
+
+    /**
+     * Returns all words of this page, created on demand.
+     *
+     * @return list of words
+     * @see Page#getAllWords()
+     */
+    @Nonnull
+    public List<Word> getAllWords() {
+        return new Elements<Word>(textEnds.length) {
+            @Override
+            public Word get(int index) {
+                return getWord(index);
+            }
+        };
+    }
+
+    /**
+     * Creates the area with the given index.
+     *
+     * @param index index of the area
+     * @return area
+     */
+    @Nonnull
+    public Area getArea(int index) {
+        List<Paragraph> paragraphs = new ArrayList<Paragraph>();
+        for (int i = start(areaEnds, index); i < areaEnds[index]; i++) {
+            paragraphs.add(getParagraph(i));
+        }
+        return new Area(paragraphs, bounds(1 + index));
+    }
+
+    /**
+     * Returns the number of areas.
+     *
+     * @return number of areas
+     */
+    public int getAreaCount() {
+        return areaEnds.length;
+    }
+
+    @Override
+    public Bounds getBounds() {
+        return bounds(0);
+    }
+
+    /**
+     * Creates the line with the given index in document order.
+     *
+     * @param index index of the line
+     * @return line
+     */
+    @Nonnull
+    public Line getLine(int index) {
+        List<Word> words = new ArrayList<Word>();
+        for (int i = start(lineEnds, index); i < lineEnds[index]; i++) {
+            words.add(getWord(i));
+        }
+        return new Line(words, bounds(lineNode(index)));
+    }
+
+    /**
+     * Returns the number of lines.
+     *
+     * @return number of lines
+     */
+    public int getLineCount() {
+        return lineEnds.length;
+    }
+
+    /**
+     * Returns the texts of all words of a line separated by spaces, without creating the line.
+     * Lines are in the natural left-to-right reading order, like in {@link #getAllLines()}.
+     *
+     * @param index index of the line in the reading order
+     * @return the same string as <code>getAllLines().get(index).mkString()</code>
+     * @see Page#getAllLinesAsStrings()
+     */
+    @Nonnull
+    public String getLineString(int index) {
+        int line = flowOrder[index];
+        int first = start(lineEnds, line);
+        int end = lineEnds[line];
+        if (first == end) return "";
+        StringBuilder sb = new StringBuilder(start(textEnds, end) - start(textEnds, first) + end - first - 1);
+        for (int i = first; i < end; i++) {
+            if (i > first) sb.append(' ');
+            sb.append(text, start(textEnds, i), textEnds[i]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns the page number.
+     *
+     * @return page number
+     */
+    public int getPageNo() {
+        return pageNo;
+    }
+
+    /**
+     * Creates the paragraph with the given index.
+     *
+     * @param index index of the paragraph
+     * @return paragraph
+     */
+    @Nonnull
+    public Paragraph getParagraph(int index) {
+        List<Line> lines = new ArrayList<Line>();
+        for (int i = start(paragraphEnds, index); i < paragraphEnds[index]; i++) {
+            lines.add(getLine(i));
+        }
+        return new Paragraph(lines, bounds(1 + areaEnds.length + index));
+    }
+
+    /**
+     * Returns the number of paragraphs.
+     *
+     * @return number of paragraphs
+     */
+    public int getParagraphCount() {
+        return paragraphEnds.length;
+    }
+
+    /**
+     * Creates the word with the given index.
+     *
+     * @param index index of the word
+     * @return word
+     */
+    @Nonnull
+    public Word getWord(int index) {
+        return new Word(getWordText(index), getWordBounds(index), bold.get(index), italic.get(index));
+    }
+
+    /**
+     * Returns the bounds of the word with the given index, without creating the word.
+     *
+     * @param index index of the word
+     * @return bounds of the word
+     */
+    @Nullable
+    public Bounds getWordBounds(int index) {
+        checkWordIndex(index);
+        return bounds(lineNode(lineEnds.length) + index);
+    }
+
+    /**
+     * Returns the number of words.
+     *
+     * @return number of words
+     */
+    public int getWordCount() {
+        return textEnds.length;
+    }
+
+    /**
+     * Returns the text of the word with the given index, without creating the word.
+     *
+     * @param index index of the word
+     * @return text of the word
+     */
+    @Nonnull
+    public String getWordText(int index) {
+        return text.substring(start(textEnds, index), textEnds[index]);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * pageNo + text.hashCode()) + Arrays.hashCode(bounds);
+    }
+
+    /**
+     * Checks if the word with the given index is written using bold font.
+     *
+     * @param index index of the word
+     * @return <code>true</code> if the word is bold
+     */
+    public boolean isBold(int index) {
+        checkWordIndex(index);
+        return bold.get(index);
+    }
+
+    /**
+     * Checks if the word with the given index is written using italic font.
+     *
+     * @param index index of the word
+     * @return <code>true</code> if the word is italic
+     */
+    public boolean isItalic(int index) {
+        checkWordIndex(index);
+        return italic.get(index);
+    }
+
+    /**
+     * Creates a page equal to the page this compact page was created from.
+     *
+     * @return page
+     */
+    @Nonnull
+    public Page toPage() {
+        List<Area> areas = new ArrayList<Area>(areaEnds.length);
+        for (int i = 0; i < areaEnds.length; i++) {
+            areas.add(getArea(i));
+        }
+        return new Page(pageNo, areas, getBounds());
+    }
+
+    @Override
+    public String toString() {
+        return "CompactPage(" + pageNo + ", " + textEnds.length + " words)";
+    }
+
+    private Bounds bounds(int node) {
+        if (nullBounds.get(node)) return null;
+        return new Bounds(bounds[4 * node], bounds[4 * node + 1], bounds[4 * node + 2], bounds[4 * node + 3]);
+    }
+
+    private int lineNode(int index) {
+        return 1 + areaEnds.length + paragraphEnds.length + index;
+    }
+
+    /**
+     * An unmodifiable list of elements created on demand.
+     */
+    private static abstract class Elements<T> extends AbstractList<T> implements RandomAccess {
+        private final int size;
+
+        Elements(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+}
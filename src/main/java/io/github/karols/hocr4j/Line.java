@@ -20,6 +20,7 @@ import io.github.karols.hocr4j.utils.DelegatingUnmodifiableList;
 import io.github.karols.hocr4j.utils.TextUtils;
 
 import com.google.common.base.Function;
+import com.google.common.base.Predicate;
 import org.apache.commons.lang3.ObjectUtils;
 
 import java.util.*;
@@ -60,6 +61,14 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
     };
     final Bounds bounds;
     final List<Word> words;
+    /**
+     * Cached hash code, or 0 if not calculated yet, like in <code>String</code>.
+     */
+    private int hash;
+    /**
+     * Cached result of <code>mkString</code>.
+     */
+    private volatile String string;
 
 
     /**
@@ -77,7 +86,7 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
                 for (HocrElement k : tag.elements) {
                     words.add(new Word(k));
                 }
-                Bounds b = Bounds.fromHocrTitleValue(tag.title);
+                Bounds b = TitleProperties.parseBounds(tag.title);
                 if (b == null) {
                     b = Bounds.ofAll(words);
                 }
@@ -121,33 +130,32 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
         this.bounds = b;
     }
 
-    private Line(Void v, @Nonnull List<Word> words) {
-        if (words.isEmpty()) throw new IllegalArgumentException();
-        this.words = words;
-        this.bounds = Bounds.ofAll(words);
-    }
-
     /**
      * Creates copy of this line containing
      * only the words that are contained in given rectangle.
      * If rectangle is <code>null</code>, returns this.
      * <b>This differs from the usual interpretation of null bounds.</b>
+     * If the whole line is contained in the rectangle, also returns this.
      *
      * @param rectangle bounding rectangle
      * @return line cropped to the bounding rectangle
      */
     @Nonnull
-    public Line createBounded(Bounds rectangle) {
+    public Line createBounded(final Bounds rectangle) {
         if (rectangle == null) {
             return this;
         }
-        List<Word> resultingWords = new ArrayList<Word>();
-        for (Word e : words) {
-            if (e.getBounds().in(rectangle)) {
-                resultingWords.add(e);
+        List<Word> resultingWords = CollectionUtils.listFilterOrSame(words, new Predicate<Word>() {
+            public boolean apply(@Nullable Word word) {
+                assert word != null;
+                return word.getBounds().in(rectangle);
             }
+        });
+        Bounds resultingBounds = bounds.intersection(rectangle);
+        if (resultingWords == words && resultingBounds == bounds) {
+            return this;
         }
-        return new Line(null, resultingWords, bounds.intersection(rectangle));
+        return new Line(null, resultingWords, resultingBounds);
     }
 
     @Override
@@ -421,7 +429,12 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
 
     @Override
     public int hashCode() {
-        return ObjectUtils.hashCodeMulti(words, bounds);
+        int h = hash;
+        if (h == 0) {
+            h = ObjectUtils.hashCodeMulti(words, bounds);
+            hash = h;
+        }
+        return h;
     }
 
     /**
@@ -440,17 +453,18 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
     /**
      * Creates a new line with all words modified by the given function.
      * Bounds are recalculated unless this line contains no words.
+     * If no word and no bounds are changed, returns this line.
      *
      * @param f word-modifying function
      * @return modified line
      */
     @Nonnull
     public Line map(@Nonnull Function<Word, Word> f) {
-        List<Word> wordList = CollectionUtils.listMap(words, f);
+        List<Word> wordList = CollectionUtils.listMapOrSame(words, f);
         if (wordList.isEmpty()) {
-            return new Line(null, wordList, bounds);
+            return this;
         } else {
-            return new Line(null, wordList);
+            return withWords(wordList);
         }
     }
 
@@ -459,13 +473,14 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
      * Bounds are recalculated unless this line contains no words;
      * If there are no words, the bounds of this line
      * are modified using the given function.
+     * If no bounds are changed, returns this line.
      *
      * @param f bounds-modifying function
      * @return modified line
      */
     @Nonnull
     public Line mapBounds(@Nonnull final Function<Bounds, Bounds> f) {
-        List<Word> wordList = CollectionUtils.listMap(words, new Function<Word, Word>() {
+        List<Word> wordList = CollectionUtils.listMapOrSame(words, new Function<Word, Word>() {
             @Nullable
             public Word apply(@Nullable Word word) {
                 assert word != null;
@@ -473,9 +488,10 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
             }
         });
         if (wordList.isEmpty()) {
-            return new Line(null, wordList, f.apply(bounds));
+            Bounds b = f.apply(bounds);
+            return ObjectUtils.equals(b, bounds) ? this : new Line(null, wordList, b);
         } else {
-            return new Line(null, wordList);
+            return withWords(wordList);
         }
     }
 
@@ -518,21 +534,27 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
 
     /**
      * Returns a string containing texts of all words separated by spaces.
+     * The string is created on the first call.
      *
      * @return string containing all words separated by spaces
      */
     @Nonnull
     public String mkString() {
-        StringBuilder sb = new StringBuilder();
-        boolean lastWasWord = false;
-        for (Word w : words) {
-            if (lastWasWord) {
-                sb.append(' ');
+        String result = string;
+        if (result == null) {
+            StringBuilder sb = new StringBuilder();
+            boolean lastWasWord = false;
+            for (Word w : words) {
+                if (lastWasWord) {
+                    sb.append(' ');
+                }
+                sb.append(w.getText());
+                lastWasWord = true;
             }
-            sb.append(w.getText());
-            lastWasWord = true;
+            result = sb.toString();
+            string = result;
         }
-        return sb.toString();
+        return result;
     }
 
     @Nonnull
@@ -588,4 +610,13 @@ public class Line extends DelegatingUnmodifiableList<Word> implements Bounded {
         }
         return new Line(null, ws, bounds.translate(dx, dy));
     }
+
+    @Nonnull
+    private Line withWords(@Nonnull List<Word> wordList) {
+        Bounds b = Bounds.ofAll(wordList);
+        if (wordList == words && ObjectUtils.equals(b, bounds)) {
+            return this;
+        }
+        return new Line(null, wordList, b);
+    }
 }
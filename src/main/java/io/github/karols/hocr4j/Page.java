@@ -14,6 +14,7 @@
 package io.github.karols.hocr4j;
 
 import io.github.karols.hocr4j.dom.HocrElement;
+import io.github.karols.hocr4j.dom.HocrParseOptions;
 import io.github.karols.hocr4j.dom.HocrParser;
 import io.github.karols.hocr4j.dom.HocrTag;
 import io.github.karols.hocr4j.utils.CollectionUtils;
@@ -22,18 +23,30 @@ import io.github.karols.hocr4j.utils.TextUtils;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.commons.lang3.ObjectUtils;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 
 /**
  * Represents a page in the OCR'd document.
+ * Element counts, lists of all lines and words, and the hash code
+ * are calculated when first needed and then cached.
  *
  * Corresponding hOCR class: <code>ocr_page</code>.
  */
@@ -52,14 +65,102 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         List<Page> pages = new ArrayList<Page>();
         int pageNo = 1;
         for (String h : hocr) {
-            List<HocrElement> parseResult = HocrParser.createAst(h);
-            List<Page> ps = HocrParser.parse(parseResult, pageNo);
+            List<Page> ps = HocrParser.parse(h, pageNo);
             pages.addAll(ps);
             pageNo += ps.size();
         }
         return pages;
     }
 
+    /**
+     * Creates a list of only the selected pages from a list of HOCR documents,
+     * only down to the selected level.
+     * The pages are numbered consecutively, starting from 1, as in <code>fromHocr(hocr)</code>,
+     * and the selection applies to these numbers.
+     * The other pages and elements are skipped without being built.
+     *
+     * @param hocr    list of HOCR documents
+     * @param options which pages and levels to build
+     * @return list of selected pages
+     */
+    public static List<Page> fromHocr(@Nonnull List<String> hocr, @Nonnull HocrParseOptions options) {
+        return HocrParser.parse(hocr, options);
+    }
+
+    /**
+     * Creates a list of pages from a list of HOCR documents, parsing several documents at once.
+     * The result is the same as of <code>fromHocr(hocr)</code>:
+     * the pages are numbered consecutively, starting from 1.
+     * <br/>
+     * The documents are parsed independently by a temporary pool of <code>parallelism</code> threads,
+     * and then their pages are renumbered.
+     * If parsing any document fails, the exception for the earliest failed document is rethrown.
+     *
+     * @param hocr        list of HOCR documents
+     * @param parallelism maximum number of documents parsed at once
+     * @return list of pages
+     * @see Page#fromHocr(List, Executor)
+     */
+    public static List<Page> fromHocr(@Nonnull List<String> hocr, int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism");
+        if (parallelism == 1 || hocr.size() <= 1) {
+            return fromHocr(hocr);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, hocr.size()),
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hocr4j-parser-%d").build());
+        try {
+            return fromHocr(hocr, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Creates a list of pages from a list of HOCR documents,
+     * parsing each document in a separate task run by the given executor.
+     * The result is the same as of <code>fromHocr(hocr)</code>:
+     * the pages are numbered consecutively, starting from 1.
+     * <br/>
+     * The executor can be shared between many calls, and with <code>HocrParser.parse(CharSequence, int, Executor)</code>.
+     * If parsing any document fails, the exception for the earliest failed document is rethrown
+     * and the tasks for the documents not parsed yet are cancelled.
+     *
+     * @param hocr     list of HOCR documents
+     * @param executor executor running the tasks
+     * @return list of pages
+     */
+    public static List<Page> fromHocr(@Nonnull List<String> hocr, @Nonnull Executor executor) {
+        ArrayList<FutureTask<List<Page>>> tasks = new ArrayList<FutureTask<List<Page>>>(hocr.size());
+        for (final String h : hocr) {
+            tasks.add(new FutureTask<List<Page>>(new Callable<List<Page>>() {
+                @Override
+                public List<Page> call() {
+                    return HocrParser.parse(h, 1);
+                }
+            }));
+        }
+        try {
+            for (FutureTask<List<Page>> task : tasks) {
+                executor.execute(task);
+            }
+            List<Page> pages = new ArrayList<Page>();
+            int pageNo = 1;
+            for (FutureTask<List<Page>> task : tasks) {
+                for (Page p : Uninterruptibles.getUninterruptibly(task)) {
+                    pages.add(p.pageNo == pageNo ? p : p.changePageNumber(pageNo));
+                    pageNo++;
+                }
+            }
+            return pages;
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            for (FutureTask<List<Page>> task : tasks) {
+                task.cancel(false);
+            }
+        }
+    }
+
     /**
      * Creates a list of pages with new page numbers
      *
@@ -119,6 +220,19 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
     private final List<Area> areas;
     private final Bounds bounds;
     private final int pageNo;
+    /**
+     * Cached result of <code>getAllLines</code>.
+     */
+    private volatile List<Line> allLines;
+    /**
+     * Cached result of <code>getAllWords</code>.
+     */
+    private volatile List<Word> allWords;
+    /**
+     * Cached hash code, or 0 if not calculated yet, like in <code>String</code>.
+     */
+    private int hash;
+    private volatile Statistics statistics;
 
     /**
      * Creates a page from the corresponding HOCR &lt;div&gt; tag
@@ -138,7 +252,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
                         areas.add(new Area(k));
                     }
                 }
-                Bounds b = Bounds.fromHocrTitleValue(tag.title);
+                Bounds b = TitleProperties.parseBounds(tag.title);
                 if (b == null) {
                     b = Bounds.ofAll(areas);
                 }
@@ -184,12 +298,6 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         bounds = Bounds.ofAll(a);
     }
 
-    private Page(Void v, int pageNo, Bounds b) {
-        this.pageNo = pageNo;
-        areas = new ArrayList<Area>();
-        bounds = b;
-    }
-
     private Page(Void v, int pageNo, @Nonnull List<Area> a, Bounds b) {
         if (a == null) throw new IllegalArgumentException();
         this.pageNo = pageNo;
@@ -243,7 +351,8 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
                 new Function<Line, Line>() {
                     public Line apply(@Nullable Line line) {
                         if (line == null) throw new IllegalStateException();
-                        return new Line(CollectionUtils.listFilter(line, requirement), line.bounds);
+                        List<Word> wordList = CollectionUtils.listFilterOrSame(line.words, requirement);
+                        return wordList == line.words ? line : new Line(wordList, line.bounds);
                     }
                 };
         final Function<Paragraph, Paragraph> paragraphCleaner =
@@ -272,14 +381,23 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      */
     @Nonnull
     public Page createBounded(@Nonnull Bounds rectangle) {
-        Page p = new Page(null, pageNo, bounds.intersection(rectangle));
-        for (Area a : areas) {
+        List<Area> areaList = areas;
+        for (int i = 0; i < areas.size(); i++) {
+            Area a = areas.get(i);
             Area a2 = a.createBounded(rectangle);
+            if (areaList == areas) {
+                if (a2 == a && !a2.isBlank()) continue;
+                areaList = new ArrayList<Area>(areas.subList(0, i));
+            }
             if (!a2.isBlank()) {
-                p.areas.add(a2);
+                areaList.add(a2);
             }
         }
-        return p;
+        Bounds b = bounds.intersection(rectangle);
+        if (areaList == areas && b == bounds) {
+            return this;
+        }
+        return new Page(null, pageNo, areaList, b);
     }
 
     /**
@@ -524,18 +642,24 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
     /**
      * Returns the list of all lines in the page
      * in the natural left-to-right reading order.
+     * The list is created on the first call and cannot be modified.
      *
      * @return all lines
      */
     @Nonnull
     public List<Line> getAllLines() {
-        ArrayList<Line> result = new ArrayList<Line>();
-        for (Area a : areas) {
-            for (Paragraph p : a) {
-                result.addAll(p);
+        List<Line> result = allLines;
+        if (result == null) {
+            ArrayList<Line> lines = new ArrayList<Line>();
+            for (Area a : areas) {
+                for (Paragraph p : a) {
+                    lines.addAll(p);
+                }
             }
+            Collections.sort(lines, OrderedBy.flowOrder());
+            result = Collections.unmodifiableList(lines);
+            allLines = result;
         }
-        Collections.sort(result, OrderedBy.flowOrder());
         return result;
     }
 
@@ -548,14 +672,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      */
     @Nonnull
     public List<List<Word>> getAllLinesAsListsOfWords() {
-        ArrayList<Line> result = new ArrayList<Line>();
-        for (Area a : areas) {
-            for (Paragraph p : a) {
-                result.addAll(p);
-            }
-        }
-        Collections.sort(result, OrderedBy.flowOrder());
-        return CollectionUtils.listMap(result, Line.GET_WORDS);
+        return CollectionUtils.listMap(getAllLines(), Line.GET_WORDS);
     }
 
     /**
@@ -568,14 +685,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      */
     @Nonnull
     public List<String> getAllLinesAsStrings() {
-        ArrayList<Line> result = new ArrayList<Line>();
-        for (Area a : areas) {
-            for (Paragraph p : a) {
-                result.addAll(p);
-            }
-        }
-        Collections.sort(result, OrderedBy.flowOrder());
-        return CollectionUtils.listMap(result, Line.MK_STRING);
+        return CollectionUtils.listMap(getAllLines(), Line.MK_STRING);
     }
 
     /**
@@ -596,22 +706,26 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
     /**
      * Returns the list of all words in the page.
      * The order is unspecified.
+     * The list is created on the first call and cannot be modified.
      *
      * @return list of all the words
      */
     @Nonnull
     public List<Word> getAllWords() {
-        ArrayList<Word> words = new ArrayList<Word>();
-        for (Area a : areas) {
-            for (Paragraph p : a) {
-                for (Line l : p) {
-                    for (Word w : l.words) {
-                        words.add(w);
+        List<Word> result = allWords;
+        if (result == null) {
+            ArrayList<Word> words = new ArrayList<Word>(getWordCount());
+            for (Area a : areas) {
+                for (Paragraph p : a) {
+                    for (Line l : p) {
+                        words.addAll(l.words);
                     }
                 }
             }
+            result = Collections.unmodifiableList(words);
+            allWords = result;
         }
-        return words;
+        return result;
     }
 
     @Override
@@ -637,11 +751,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      * @return number of lines
      */
     public int getLineCount() {
-        int sum = 0;
-        for (Area a : areas) {
-            sum += a.getLineCount();
-        }
-        return sum;
+        return getStatistics().lineCount;
     }
 
     /**
@@ -659,11 +769,17 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      * @return number of paragraphs
      */
     public int getParagraphCount() {
-        int sum = 0;
-        for (Area a : areas) {
-            sum += a.getParagraphCount();
+        return getStatistics().paragraphCount;
+    }
+
+    @Nonnull
+    private Statistics getStatistics() {
+        Statistics result = statistics;
+        if (result == null) {
+            result = new Statistics(areas);
+            statistics = result;
         }
-        return sum;
+        return result;
     }
 
     @Override
@@ -690,11 +806,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      * @return number of words
      */
     public int getWordCount() {
-        int sum = 0;
-        for (Area a : areas) {
-            sum += a.getWordCount();
-        }
-        return sum;
+        return getStatistics().wordCount;
     }
 
     /**
@@ -718,6 +830,17 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         Bounds rect = growBoundsUntilTheyStopCuttingWords(b);
         assert rect != null;
         List<Line> lines = findAllLines(LineThat.hasWordsIntersecting(rect));
+        List<Word> words = new ArrayList<Word>();
+        List<Integer> lineEnds = new ArrayList<Integer>();
+        for (Area a : areas) {
+            for (Paragraph p : a) {
+                for (Line l : p) {
+                    words.addAll(l.words);
+                    lineEnds.add(words.size());
+                }
+            }
+        }
+        BoundsArray wordBounds = BoundsArray.of(words);
         double sum = 0;
         int count = 0;
         for (Line l : lines) {
@@ -734,7 +857,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         double spaceWidth = sum / count;
         Bounds movingEdge = rect.getRightEdge();
         Bounds nearTheRightEdge = movingEdge.moveToTheLeft((int) (spaceWidth / 4));
-        int noofLongLines = findAllLines(LineThat.hasWordsIntersecting(nearTheRightEdge)).size();
+        int noofLongLines = countLinesWithWordsIntersecting(wordBounds, lineEnds, nearTheRightEdge);
         if (noofLongLines < 2) {
             noofLongLines = 2;
         }
@@ -745,7 +868,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         }
         while (movingEdge.in(this.bounds) && movingEdge.getLeft() - rect.getRight() < rect.getWidth()) {
             movingEdge = movingEdge.moveToTheRight(step);
-            int cutLinesCount = findAllLines(LineThat.hasWordsIntersecting(movingEdge)).size();
+            int cutLinesCount = countLinesWithWordsIntersecting(wordBounds, lineEnds, movingEdge);
             if (cutLinesCount > noofLongLines) {
                 break;
             }
@@ -771,14 +894,16 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         if (b == null) {
             return null;
         }
-        List<Word> words = getAllWords();
+        BoundsArray wordBounds = BoundsArray.of(getAllWords());
+        // words are checked one at a time against the grown bounds, not all at once:
+        // bounds with zero area may touch a word that they no longer cut after growing
         boolean modified = true;
         Bounds rect = b;
         while (modified) {
             modified = false;
-            for (Word w : words) {
-                if (rect.cuts(w.getBounds())) {
-                    rect = rect.union(w.getBounds());
+            for (int i = 0; i < wordBounds.size(); i++) {
+                if (wordBounds.isCutBy(i, rect)) {
+                    rect = rect.union(wordBounds.get(i));
                     modified = true;
                 }
             }
@@ -786,9 +911,33 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         return rect;
     }
 
+    /**
+     * Counts the lines that have any word intersecting the given bounds,
+     * like <code>findAllLines(LineThat.hasWordsIntersecting(rect)).size()</code>.
+     *
+     * @param wordBounds bounds of all words of the page, line after line
+     * @param lineEnds   index after the last word of each line
+     * @param rect       bounds to intersect
+     */
+    private static int countLinesWithWordsIntersecting(BoundsArray wordBounds, List<Integer> lineEnds, Bounds rect) {
+        BitSet intersecting = wordBounds.intersecting(rect);
+        int count = 0;
+        int line = 0;
+        for (int i = intersecting.nextSetBit(0); i >= 0; i = intersecting.nextSetBit(lineEnds.get(line))) {
+            while (lineEnds.get(line) <= i) line++;
+            count++;
+        }
+        return count;
+    }
+
     @Override
     public int hashCode() {
-        return ObjectUtils.hashCodeMulti(areas, bounds);
+        int h = hash;
+        if (h == 0) {
+            h = ObjectUtils.hashCodeMulti(areas, bounds);
+            hash = h;
+        }
+        return h;
     }
 
     /**
@@ -797,28 +946,24 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      * @return <code>true</code> if this page is blank, <code>false</code> otherwise
      */
     public boolean isBlank() {
-        for (Area a : areas) {
-            if (!a.isBlank()) {
-                return false;
-            }
-        }
-        return true;
+        return getStatistics().blank;
     }
 
     /**
      * Creates a new page with all areas modified by the given function.
      * Bounds are recalculated unless this page contains no areas.
+     * If no area and no bounds are changed, returns this page.
      *
      * @param f area-modifying function
      * @return modified page
      */
     @Nonnull
     public Page map(@Nonnull Function<Area, Area> f) {
-        List<Area> areaList = CollectionUtils.listMap(areas, f);
+        List<Area> areaList = CollectionUtils.listMapOrSame(areas, f);
         if (areaList.isEmpty()) {
-            return new Page(null, pageNo, areaList, bounds);
+            return this;
         } else {
-            return new Page(null, pageNo, areaList);
+            return withAreas(areaList);
         }
     }
 
@@ -827,13 +972,14 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
      * Bounds are recalculated unless this page contains no areas;
      * If there are no areas, the bounds of this page
      * are modified using the given function.
+     * If no bounds are changed, returns this page.
      *
      * @param f bounds-modifying function
      * @return modified page
      */
     @Nonnull
     public Page mapBounds(@Nonnull final Function<Bounds, Bounds> f) {
-        List<Area> areaList = CollectionUtils.listMap(areas, new Function<Area, Area>() {
+        List<Area> areaList = CollectionUtils.listMapOrSame(areas, new Function<Area, Area>() {
             @Nullable
             public Area apply(@Nullable Area area) {
                 assert area != null;
@@ -841,15 +987,17 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
             }
         });
         if (areaList.isEmpty()) {
-            return new Page(null, pageNo, areaList, f.apply(bounds));
+            Bounds b = f.apply(bounds);
+            return ObjectUtils.equals(b, bounds) ? this : new Page(null, pageNo, areaList, b);
         } else {
-            return new Page(null, pageNo, areaList);
+            return withAreas(areaList);
         }
     }
 
     /**
      * Creates a new page with all lines modified by the given function.
      * Bounds are recalculated unless this page contains no lines.
+     * If no line and no bounds are changed, returns this page.
      *
      * @param lineFunction line-modifying function
      * @return modified paragraph
@@ -869,7 +1017,7 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
                         return area.map(paragraphFunction);
                     }
                 };
-        return new Page(pageNo, CollectionUtils.listMap(areas, areaFunction));
+        return map(areaFunction);
     }
 
     /**
@@ -904,4 +1052,47 @@ public class Page extends DelegatingUnmodifiableList<Area> implements Bounded {
         return "PAGE #" + pageNo + ": " + areas;
     }
 
+    @Nonnull
+    private Page withAreas(@Nonnull List<Area> areaList) {
+        Bounds b = Bounds.ofAll(areaList);
+        if (areaList == areas && ObjectUtils.equals(b, bounds)) {
+            return this;
+        }
+        return new Page(null, pageNo, areaList, b);
+    }
+
+    /**
+     * Counts of the elements of a page, calculated in a single pass.
+     */
+    @Immutable
+    private static final class Statistics {
+
+        final boolean blank;
+        final int lineCount;
+        final int paragraphCount;
+        final int wordCount;
+
+        Statistics(@Nonnull List<Area> areas) {
+            boolean blank = true;
+            int lineCount = 0;
+            int paragraphCount = 0;
+            int wordCount = 0;
+            for (Area a : areas) {
+                paragraphCount += a.size();
+                for (Paragraph p : a) {
+                    lineCount += p.size();
+                    for (Line l : p) {
+                        wordCount += l.words.size();
+                        if (blank) {
+                            blank = l.isBlank();
+                        }
+                    }
+                }
+            }
+            this.blank = blank;
+            this.lineCount = lineCount;
+            this.paragraphCount = paragraphCount;
+            this.wordCount = wordCount;
+        }
+    }
 }
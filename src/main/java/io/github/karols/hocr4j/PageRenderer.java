@@ -21,6 +21,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import javax.annotation.Nonnull;
 import javax.imageio.ImageIO;
 
@@ -288,33 +289,40 @@ public class PageRenderer {
     public void renderOnTop(@Nonnull Page page, @Nonnull BufferedImage img) {
         Graphics2D g = (Graphics2D) img.getGraphics();
         g.setColor(Color.RED);
+        List<Word> words = new ArrayList<Word>();
         for (Area a : page) {
             for (Paragraph p : a) {
                 for (Line l : p) {
-                    for (Word w : l.words) {
-                        if (w.isBold()) {
-                            if (w.isItalic()) {
-                                g.setFont(boldItalicFont);
-                            } else {
-                                g.setFont(boldFont);
-                            }
-                        } else if (w.isItalic()) {
-                            g.setFont(italicFont);
-                        } else {
-                            g.setFont(plainFont);
-                        }
-                        Bounds b = w.getBounds().scale(scale);
-                        g.drawString(w.getText(), b.getLeft(), b.getBottom());
-                    }
+                    words.addAll(l.words);
                 }
             }
         }
+        BoundsArray wordBounds = BoundsArray.of(words).scale(scale);
+        for (int i = 0; i < words.size(); i++) {
+            if (wordBounds.isNull(i)) {
+                continue;
+            }
+            Word w = words.get(i);
+            if (w.isBold()) {
+                if (w.isItalic()) {
+                    g.setFont(boldItalicFont);
+                } else {
+                    g.setFont(boldFont);
+                }
+            } else if (w.isItalic()) {
+                g.setFont(italicFont);
+            } else {
+                g.setFont(plainFont);
+            }
+            g.drawString(w.getText(), wordBounds.getLeft(i), wordBounds.getBottom(i));
+        }
         g.setStroke(new BasicStroke(strokeWidth));
         g.setColor(defaultRectangleColor);
-        for (Bounds rect : rectanglesToDraw) {
-            if (rect != null) {
-                Bounds b = rect.scale(scale);
-                g.drawRect(b.getLeft(), b.getTop(), b.getWidth(), b.getHeight());
+        BoundsArray rectangles = BoundsArray.of(rectanglesToDraw.toArray(new Bounds[rectanglesToDraw.size()])).scale(scale);
+        for (int i = 0; i < rectangles.size(); i++) {
+            if (!rectangles.isNull(i)) {
+                g.drawRect(rectangles.getLeft(i), rectangles.getTop(i),
+                        rectangles.getRight(i) - rectangles.getLeft(i), rectangles.getBottom(i) - rectangles.getTop(i));
             }
         }
         for (Pair<Color, Bounds> rect : coloredRectanglesToDraw) {
@@ -39,6 +39,10 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
 
     private final Bounds bounds;
     private final List<Line> lines;
+    /**
+     * Cached hash code, or 0 if not calculated yet, like in <code>String</code>.
+     */
+    private int hash;
 
     /**
      * Creates a paragraph from the corresponding HOCR &lt;p&gt; tag
@@ -56,7 +60,7 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
                         lines.add(new Line(k));
                     }
                 }
-                Bounds b = Bounds.fromHocrTitleValue(tag.title);
+                Bounds b = TitleProperties.parseBounds(tag.title);
                 if (b == null) {
                     b = Bounds.ofAll(lines);
                 }
@@ -91,12 +95,6 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
         bounds = b;
     }
 
-    private Paragraph(Void v, List<Line> l) {
-        if (l.isEmpty()) throw new IllegalArgumentException();
-        lines = l;
-        bounds = Bounds.ofAll(l);
-    }
-
     private Paragraph(Void v, List<Line> l, Bounds b) {
         lines = l;
         bounds = b;
@@ -116,14 +114,23 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
      */
     @Nonnull
     public Paragraph createBounded(@Nonnull Bounds rectangle) {
-        Paragraph p = new Paragraph((Void) null, bounds.intersection(rectangle));
-        for (Line l : lines) {
+        List<Line> lineList = lines;
+        for (int i = 0; i < lines.size(); i++) {
+            Line l = lines.get(i);
             Line l2 = l.createBounded(rectangle);
+            if (lineList == lines) {
+                if (l2 == l && !l2.isBlank()) continue;
+                lineList = new ArrayList<Line>(lines.subList(0, i));
+            }
             if (!l2.isBlank()) {
-                p.lines.add(l2);
+                lineList.add(l2);
             }
         }
-        return p;
+        Bounds b = bounds.intersection(rectangle);
+        if (lineList == lines && b == bounds) {
+            return this;
+        }
+        return new Paragraph(null, lineList, b);
     }
 
     /**
@@ -226,7 +233,12 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
 
     @Override
     public int hashCode() {
-        return ObjectUtils.hashCodeMulti(lines, bounds);
+        int h = hash;
+        if (h == 0) {
+            h = ObjectUtils.hashCodeMulti(lines, bounds);
+            hash = h;
+        }
+        return h;
     }
 
     /**
@@ -246,17 +258,18 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
     /**
      * Creates a new paragraph with all lines modified by the given function.
      * Bounds are recalculated unless this paragraph contains no lines.
+     * If no line and no bounds are changed, returns this paragraph.
      *
      * @param f line-modifying function
      * @return modified paragraph
      */
     @Nonnull
     public Paragraph map(@Nonnull Function<Line, Line> f) {
-        List<Line> lineList = CollectionUtils.listMap(lines, f);
+        List<Line> lineList = CollectionUtils.listMapOrSame(lines, f);
         if (lineList.isEmpty()) {
-            return new Paragraph(null, lineList, bounds);
+            return this;
         } else {
-            return new Paragraph(null, lineList);
+            return withLines(lineList);
         }
     }
 
@@ -265,13 +278,14 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
      * Bounds are recalculated unless this paragraph contains no lines;
      * If there are no lines, the bounds of this paragraph
      * are modified using the given function.
+     * If no bounds are changed, returns this paragraph.
      *
      * @param f bounds-modifying function
      * @return modified paragraph
      */
     @Nonnull
     public Paragraph mapBounds(@Nonnull final Function<Bounds, Bounds> f) {
-        List<Line> lineList = CollectionUtils.listMap(lines, new Function<Line, Line>() {
+        List<Line> lineList = CollectionUtils.listMapOrSame(lines, new Function<Line, Line>() {
             @Nullable
             public Line apply(@Nullable Line line) {
                 assert line != null;
@@ -279,9 +293,10 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
             }
         });
         if (lineList.isEmpty()) {
-            return new Paragraph(null, lineList, f.apply(bounds));
+            Bounds b = f.apply(bounds);
+            return ObjectUtils.equals(b, bounds) ? this : new Paragraph(null, lineList, b);
         } else {
-            return new Paragraph(null, lineList);
+            return withLines(lineList);
         }
     }
 
@@ -310,4 +325,13 @@ public class Paragraph extends DelegatingUnmodifiableList<Line> implements Bound
         }
         return new Paragraph(null, ls, bounds.translate(dx, dy));
     }
+
+    @Nonnull
+    private Paragraph withLines(@Nonnull List<Line> lineList) {
+        Bounds b = Bounds.ofAll(lineList);
+        if (lineList == lines && ObjectUtils.equals(b, bounds)) {
+            return this;
+        }
+        return new Paragraph(null, lineList, b);
+    }
 }
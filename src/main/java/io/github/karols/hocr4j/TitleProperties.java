@@ -0,0 +1,424 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Properties of an HOCR element, found in its <code>title</code> attribute.
+ * <br/>
+ * The <code>title</code> attribute contains a semicolon separated list of properties,
+ * each consisting of a name and space separated values, for example:
+ * <br/>
+ * <code>bbox 118 140 1102 188; baseline 0.002 -10; x_size 48; x_wconf 93</code>
+ * <br/>
+ * The value is scanned only once and no intermediate strings are created.
+ * Unknown properties are ignored, malformed numbers cause <code>NumberFormatException</code>.
+ * Missing floating point properties are returned as <code>NaN</code>.
+ */
+@Immutable
+public final class TitleProperties {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private final float ascenders;
+    private final float baselineOffset;
+    private final float baselineSlope;
+    private final int bottom;
+    private final int confidence;
+    private final float descenders;
+    private final boolean hasBounds;
+    private final boolean hasConfidence;
+    private final boolean hasPhysicalPageNumber;
+    private final String image;
+    private final int left;
+    private final int physicalPageNumber;
+    private final int right;
+    private final float textAngle;
+    private final int top;
+    private final float xSize;
+
+    private TitleProperties(@Nonnull CharSequence title, int start, int end) {
+        float ascenders = Float.NaN;
+        float baselineOffset = Float.NaN;
+        float baselineSlope = Float.NaN;
+        int bottom = 0;
+        int confidence = 0;
+        float descenders = Float.NaN;
+        boolean hasBounds = false;
+        boolean hasConfidence = false;
+        boolean hasPhysicalPageNumber = false;
+        String image = null;
+        int left = 0;
+        int physicalPageNumber = 0;
+        int right = 0;
+        float textAngle = Float.NaN;
+        int top = 0;
+        float xSize = Float.NaN;
+        int i = start;
+        while (i < end) {
+            int nameStart = skipSpaces(title, i, end);
+            int nameEnd = valueEnd(title, nameStart, end);
+            int propertyEnd = propertyEnd(title, nameEnd, end);
+            int s = skipSpaces(title, nameEnd, propertyEnd);
+            int e = valueEnd(title, s, propertyEnd);
+            if (nameEquals(title, nameStart, nameEnd, "bbox")) {
+                if (!hasBounds) {
+                    left = parseInt(title, s, e);
+                    s = skipSpaces(title, e, propertyEnd);
+                    e = valueEnd(title, s, propertyEnd);
+                    top = parseInt(title, s, e);
+                    s = skipSpaces(title, e, propertyEnd);
+                    e = valueEnd(title, s, propertyEnd);
+                    right = parseInt(title, s, e);
+                    s = skipSpaces(title, e, propertyEnd);
+                    e = valueEnd(title, s, propertyEnd);
+                    bottom = parseInt(title, s, e);
+                    hasBounds = true;
+                }
+            } else if (nameEquals(title, nameStart, nameEnd, "x_wconf")) {
+                confidence = parseInt(title, s, e);
+                hasConfidence = true;
+            } else if (nameEquals(title, nameStart, nameEnd, "baseline")) {
+                baselineSlope = parseFloat(title, s, e);
+                s = skipSpaces(title, e, propertyEnd);
+                e = valueEnd(title, s, propertyEnd);
+                baselineOffset = parseFloat(title, s, e);
+            } else if (nameEquals(title, nameStart, nameEnd, "x_size")) {
+                xSize = parseFloat(title, s, e);
+            } else if (nameEquals(title, nameStart, nameEnd, "x_descenders")) {
+                descenders = parseFloat(title, s, e);
+            } else if (nameEquals(title, nameStart, nameEnd, "x_ascenders")) {
+                ascenders = parseFloat(title, s, e);
+            } else if (nameEquals(title, nameStart, nameEnd, "textangle")) {
+                textAngle = parseFloat(title, s, e);
+            } else if (nameEquals(title, nameStart, nameEnd, "ppageno")) {
+                physicalPageNumber = parseInt(title, s, e);
+                hasPhysicalPageNumber = true;
+            } else if (nameEquals(title, nameStart, nameEnd, "image")) {
+                int imageEnd = propertyEnd;
+                while (imageEnd > s && Character.isWhitespace(title.charAt(imageEnd - 1))) imageEnd--;
+                if (imageEnd - s >= 2 && title.charAt(s) == '"' && title.charAt(imageEnd - 1) == '"') {
+                    s++;
+                    imageEnd--;
+                }
+                image = title.subSequence(s, imageEnd).toString();
+            }
+            i = propertyEnd + 1;
+        }
+        this.ascenders = ascenders;
+        this.baselineOffset = baselineOffset;
+        this.baselineSlope = baselineSlope;
+        this.bottom = bottom;
+        this.confidence = confidence;
+        this.descenders = descenders;
+        this.hasBounds = hasBounds;
+        this.hasConfidence = hasConfidence;
+        this.hasPhysicalPageNumber = hasPhysicalPageNumber;
+        this.image = image;
+        this.left = left;
+        this.physicalPageNumber = physicalPageNumber;
+        this.right = right;
+        this.textAngle = textAngle;
+        this.top = top;
+        this.xSize = xSize;
+    }
+
+    /**
+     * Parses all known properties from a value of the <code>title</code> attribute.
+     *
+     * @param title value of the <code>title</code> attribute
+     * @return parsed properties
+     * @throws NumberFormatException if a known property has a malformed value
+     */
+    @Nonnull
+    public static TitleProperties parse(@Nonnull CharSequence title) {
+        return new TitleProperties(title, 0, title.length());
+    }
+
+    /**
+     * Parses only the <code>bbox</code> property from a value of the <code>title</code> attribute.
+     * The only object created is the returned <code>Bounds</code>.
+     *
+     * @param title value of the <code>title</code> attribute
+     * @return bounds found in the value, or <code>null</code> if none found
+     * @throws NumberFormatException if the <code>bbox</code> property is malformed
+     */
+    @Nullable
+    public static Bounds parseBounds(@Nonnull CharSequence title) {
+        return parseBounds(title, 0, title.length());
+    }
+
+    /**
+     * Parses only the <code>bbox</code> property from a value of the <code>title</code> attribute
+     * found in the given range of the text.
+     * The only object created is the returned <code>Bounds</code>.
+     *
+     * @param text  text containing the value of the <code>title</code> attribute
+     * @param start index of the first character of the value
+     * @param end   index after the last character of the value
+     * @return bounds found in the value, or <code>null</code> if none found
+     * @throws NumberFormatException if the <code>bbox</code> property is malformed
+     */
+    @Nullable
+    public static Bounds parseBounds(@Nonnull CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end) {
+            int nameStart = skipSpaces(text, i, end);
+            int nameEnd = valueEnd(text, nameStart, end);
+            int propertyEnd = propertyEnd(text, nameEnd, end);
+            if (nameEquals(text, nameStart, nameEnd, "bbox")) {
+                int s = skipSpaces(text, nameEnd, propertyEnd);
+                int e = valueEnd(text, s, propertyEnd);
+                int left = parseInt(text, s, e);
+                s = skipSpaces(text, e, propertyEnd);
+                e = valueEnd(text, s, propertyEnd);
+                int top = parseInt(text, s, e);
+                s = skipSpaces(text, e, propertyEnd);
+                e = valueEnd(text, s, propertyEnd);
+                int right = parseInt(text, s, e);
+                s = skipSpaces(text, e, propertyEnd);
+                e = valueEnd(text, s, propertyEnd);
+                int bottom = parseInt(text, s, e);
+                return new Bounds(left, top, right, bottom);
+            }
+            i = propertyEnd + 1;
+        }
+        return null;
+    }
+
+    private static boolean nameEquals(CharSequence text, int start, int end, String name) {
+        if (end - start != name.length()) return false;
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) != name.charAt(i - start)) return false;
+        }
+        return true;
+    }
+
+    private static NumberFormatException numberFormatException(CharSequence text, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text.subSequence(start, end) + "\"");
+    }
+
+    private static float parseFloat(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) fractionDigits++;
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        if (i != end || digits == 0 || digits >= POWERS_OF_TEN.length) {
+            // exponents and unusually long numbers
+            try {
+                return Float.parseFloat(text.subSequence(start, end).toString());
+            } catch (NumberFormatException e) {
+                throw numberFormatException(text, start, end);
+            }
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return (float) (negative ? -value : value);
+    }
+
+    private static int parseInt(CharSequence text, int start, int end) {
+        int i = start;
+        boolean negative = false;
+        if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        if (i == end) throw numberFormatException(text, start, end);
+        long value = 0;
+        for (; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') throw numberFormatException(text, start, end);
+            value = value * 10 + (c - '0');
+            if (value > Integer.MAX_VALUE + 1L) throw numberFormatException(text, start, end);
+        }
+        if (negative) value = -value;
+        if (value > Integer.MAX_VALUE) throw numberFormatException(text, start, end);
+        return (int) value;
+    }
+
+    /**
+     * Returns the index of the semicolon ending the property, or <code>end</code> if it is the last one.
+     * Semicolons inside double quotes are skipped.
+     */
+    private static int propertyEnd(CharSequence text, int start, int end) {
+        boolean quoted = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ';' && !quoted) {
+                return i;
+            }
+        }
+        return end;
+    }
+
+    private static int skipSpaces(CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+
+    private static int valueEnd(CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && text.charAt(i) != ';' && !Character.isWhitespace(text.charAt(i))) i++;
+        return i;
+    }
+
+    /**
+     * Returns the <code>x_ascenders</code> property: the height of ascenders.
+     *
+     * @return height of ascenders, or <code>NaN</code> if not present
+     */
+    public float getAscenders() {
+        return ascenders;
+    }
+
+    /**
+     * Returns the offset of the baseline from the bottom left corner of the bounds,
+     * from the <code>baseline</code> property.
+     *
+     * @return baseline offset, or <code>NaN</code> if not present
+     */
+    public float getBaselineOffset() {
+        return baselineOffset;
+    }
+
+    /**
+     * Returns the slope of the baseline, from the <code>baseline</code> property.
+     *
+     * @return baseline slope, or <code>NaN</code> if not present
+     */
+    public float getBaselineSlope() {
+        return baselineSlope;
+    }
+
+    /**
+     * Returns the bounds from the <code>bbox</code> property.
+     *
+     * @return bounds, or <code>null</code> if not present
+     */
+    @Nullable
+    public Bounds getBounds() {
+        return hasBounds ? new Bounds(left, top, right, bottom) : null;
+    }
+
+    /**
+     * Returns the <code>x_wconf</code> property: the recognition confidence, usually from 0 to 100.
+     *
+     * @return confidence
+     * @throws IllegalStateException if not present
+     */
+    public int getConfidence() {
+        if (!hasConfidence) throw new IllegalStateException();
+        return confidence;
+    }
+
+    /**
+     * Returns the <code>x_descenders</code> property: the depth of descenders.
+     *
+     * @return depth of descenders, or <code>NaN</code> if not present
+     */
+    public float getDescenders() {
+        return descenders;
+    }
+
+    /**
+     * Returns the <code>image</code> property: the image file name, without quotes.
+     *
+     * @return image file name, or <code>null</code> if not present
+     */
+    @Nullable
+    public String getImage() {
+        return image;
+    }
+
+    /**
+     * Returns the <code>ppageno</code> property: the physical page number.
+     *
+     * @return physical page number
+     * @throws IllegalStateException if not present
+     */
+    public int getPhysicalPageNumber() {
+        if (!hasPhysicalPageNumber) throw new IllegalStateException();
+        return physicalPageNumber;
+    }
+
+    /**
+     * Returns the <code>textangle</code> property: the angle of the text, in degrees.
+     *
+     * @return text angle, or <code>NaN</code> if not present
+     */
+    public float getTextAngle() {
+        return textAngle;
+    }
+
+    /**
+     * Returns the <code>x_size</code> property: the height of the line.
+     *
+     * @return line height, or <code>NaN</code> if not present
+     */
+    public float getXSize() {
+        return xSize;
+    }
+
+    /**
+     * Checks if the <code>bbox</code> property is present.
+     *
+     * @return <code>true</code> if present
+     */
+    public boolean hasBounds() {
+        return hasBounds;
+    }
+
+    /**
+     * Checks if the <code>x_wconf</code> property is present.
+     *
+     * @return <code>true</code> if present
+     */
+    public boolean hasConfidence() {
+        return hasConfidence;
+    }
+
+    /**
+     * Checks if the <code>ppageno</code> property is present.
+     *
+     * @return <code>true</code> if present
+     */
+    public boolean hasPhysicalPageNumber() {
+        return hasPhysicalPageNumber;
+    }
+}
@@ -17,6 +17,7 @@ import io.github.karols.hocr4j.dom.HocrElement;
 import io.github.karols.hocr4j.dom.HocrTag;
 
 import com.google.common.base.Function;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.builder.CompareToBuilder;
 
@@ -148,7 +149,7 @@ public class Word implements Bounded, Comparable<Word> {
             if (e instanceof HocrTag) {
                 HocrTag tag = (HocrTag) e;
                 if (tag.name.equals("span") && ("ocrx_word".equals(tag.clazz) || "ocr_word".equals(tag.clazz))) {
-                    _bounds = Bounds.fromHocrTitleValue(tag.title);
+                    _bounds = TitleProperties.parseBounds(tag.title);
                 } else if (tag.name.equals("strong") || tag.name.equals("b")) {
                     _isBold = true;
                 } else if (tag.name.equals("em") || tag.name.equals("i")) {
@@ -245,13 +246,18 @@ public class Word implements Bounded, Comparable<Word> {
 
     /**
      * Creates a new word with bounds modified by the given function.
+     * If the bounds are not changed, returns this word.
      *
      * @param f bounds-modifying function
      * @return modified word
      */
     @Nonnull
     public Word mapBounds(Function<Bounds, Bounds> f) {
-        return new Word(text, f.apply(bounds), isBold, isItalic);
+        Bounds b = f.apply(bounds);
+        if (ObjectUtils.equals(b, bounds)) {
+            return this;
+        }
+        return new Word(text, b, isBold, isItalic);
     }
 
     /**
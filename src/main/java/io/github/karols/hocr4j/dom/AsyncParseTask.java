@@ -0,0 +1,83 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.util.concurrent.AbstractFuture;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Parses a document on an executor, completing itself with the pages.
+ * Cancellation is checked before each page, so a cancelled parse stops without building the rest of the document.
+ */
+final class AsyncParseTask extends AbstractFuture<List<Page>> implements Runnable {
+
+    private final CharSequence hocr;
+    private final boolean large;
+    private final HocrParseLimiter limiter;
+    private final HocrParseOptions options;
+    private final int startingPageNumber;
+
+    /**
+     * @param limiter limiter to release the slot in after the parse, or <code>null</code>
+     * @param large   whether the document takes a large slot in the limiter
+     */
+    AsyncParseTask(@Nonnull CharSequence hocr, int startingPageNumber, @Nonnull HocrParseOptions options,
+                   @Nullable HocrParseLimiter limiter, boolean large) {
+        this.hocr = hocr;
+        this.startingPageNumber = startingPageNumber;
+        this.options = options;
+        this.limiter = limiter;
+        this.large = large;
+    }
+
+    /**
+     * Completes the future with the given exception, used when the task could not be run at all.
+     */
+    void fail(@Nonnull Throwable t) {
+        setException(t);
+    }
+
+    @Override
+    public void run() {
+        try {
+            if (isCancelled()) return;
+            HocrPageBuilder builder = new HocrPageBuilder(startingPageNumber, options);
+            HocrLexer lexer = new HocrLexer(hocr);
+            ArrayList<Page> result = new ArrayList<Page>();
+            int offset = 0;
+            while (offset < hocr.length() && !builder.isFinished()) {
+                if (isCancelled()) return;
+                offset = HocrParser.build(hocr, offset, hocr.length(), builder, lexer, true);
+                for (Page p = builder.pollPage(); p != null; p = builder.pollPage()) {
+                    result.add(p);
+                }
+            }
+            builder.finish();
+            for (Page p = builder.pollPage(); p != null; p = builder.pollPage()) {
+                result.add(p);
+            }
+            set(result);
+        } catch (Throwable t) {
+            setException(t);
+        } finally {
+            if (limiter != null) limiter.release(large);
+        }
+    }
+}
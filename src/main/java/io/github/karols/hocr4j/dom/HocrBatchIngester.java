@@ -0,0 +1,373 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Parses all HOCR files in a directory tree in the background, publishing the results through a bounded queue.
+ * <br/>
+ * One thread walks the tree, in sorted order, looking for files with the <code>.hocr</code> or <code>.html</code> extension,
+ * and a fixed number of worker threads parse them, each file with <code>HocrParser.parse(File, Charset)</code>.
+ * Both the queue of files waiting to be parsed and the queue of results are bounded,
+ * so if the results are not taken, the workers and then the walker stop and wait,
+ * and the number of parsed pages kept in memory stays bounded.
+ * <br/>
+ * A file that cannot be read or parsed, or a directory that cannot be listed,
+ * is reported as a failed result, and the rest of the batch continues.
+ * This includes errors, like <code>OutOfMemoryError</code> while parsing a huge file.
+ * Symbolic links to directories are followed, but each directory is walked only once:
+ * a directory reached again, for example through a link to its ancestor, is reported as a failed result.
+ * Results are published in the order in which the files are parsed, which is not the order of the walk.
+ */
+@ThreadSafe
+public final class HocrBatchIngester implements Closeable {
+
+    /**
+     * Result of parsing a single file.
+     */
+    @Immutable
+    public static final class Result {
+
+        private final File file;
+        private final Throwable failure;
+        private final List<Page> pages;
+
+        private Result(File file, List<Page> pages, Throwable failure) {
+            this.file = file;
+            this.pages = pages;
+            this.failure = failure;
+        }
+
+        /**
+         * Returns the parsed file, or the directory that could not be listed.
+         *
+         * @return file
+         */
+        @Nonnull
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Returns the exception that caused the failure.
+         *
+         * @return exception, or <code>null</code> if the file was parsed successfully
+         */
+        @Nullable
+        public Throwable getFailure() {
+            return failure;
+        }
+
+        /**
+         * Returns the pages of the file, numbered from 1.
+         *
+         * @return list of pages
+         * @throws IllegalStateException if the file could not be parsed
+         */
+        @Nonnull
+        public List<Page> getPages() {
+            if (failure != null) throw new IllegalStateException("Parsing " + file + " failed", failure);
+            return pages;
+        }
+
+        /**
+         * Checks if the file was parsed successfully.
+         *
+         * @return <code>true</code> if there are pages
+         */
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        @Override
+        public String toString() {
+            return failure == null
+                    ? file + ": " + pages.size() + " pages"
+                    : file + ": " + failure;
+        }
+    }
+
+    /**
+     * Parses a single file.
+     */
+    interface FileParser {
+
+        @Nonnull
+        List<Page> parse(@Nonnull File file, @Nonnull Charset charset) throws IOException;
+    }
+
+    private static final FileParser HOCR_PARSER = new FileParser() {
+        @Nonnull
+        @Override
+        public List<Page> parse(@Nonnull File file, @Nonnull Charset charset) throws IOException {
+            return HocrParser.parse(file, charset);
+        }
+    };
+
+    /**
+     * Marks the end of the files and the end of the results.
+     */
+    private static final File END_OF_FILES = new File("");
+    private static final Result END_OF_RESULTS = new Result(END_OF_FILES, null, null);
+
+    private final Charset charset;
+    private final BlockingQueue<File> files;
+    private final int parallelism;
+    private final FileParser parser;
+    private final BlockingQueue<Result> results;
+    private final AtomicInteger runningWorkers;
+    private final ExecutorService threads;
+
+    private HocrBatchIngester(FileParser parser, Charset charset, int parallelism, int queueCapacity) {
+        this.parser = parser;
+        this.charset = charset;
+        this.parallelism = parallelism;
+        this.files = new ArrayBlockingQueue<File>(queueCapacity);
+        this.results = new ArrayBlockingQueue<Result>(queueCapacity);
+        this.runningWorkers = new AtomicInteger(parallelism);
+        this.threads = Executors.newFixedThreadPool(parallelism + 1,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hocr4j-ingester-%d").build());
+    }
+
+    /**
+     * Starts parsing UTF-8 encoded HOCR files in the directory tree.
+     *
+     * @param root          root directory
+     * @param parallelism   number of files parsed at once
+     * @param queueCapacity maximum number of results waiting to be taken
+     * @return running batch
+     * @see HocrBatchIngester#start(File, Charset, int, int)
+     */
+    @Nonnull
+    public static HocrBatchIngester start(@Nonnull File root, int parallelism, int queueCapacity) {
+        return start(root, Charsets.UTF_8, parallelism, queueCapacity);
+    }
+
+    /**
+     * Starts parsing HOCR files in the directory tree.
+     *
+     * @param root          root directory
+     * @param charset       encoding of the files
+     * @param parallelism   number of files parsed at once
+     * @param queueCapacity maximum number of results waiting to be taken
+     * @return running batch
+     */
+    @Nonnull
+    public static HocrBatchIngester start(@Nonnull File root, @Nonnull Charset charset,
+                                          int parallelism, int queueCapacity) {
+        return start(root, charset, parallelism, queueCapacity, HOCR_PARSER);
+    }
+
+    /**
+     * Starts parsing files in the directory tree with the given parser.
+     */
+    @Nonnull
+    static HocrBatchIngester start(@Nonnull final File root, @Nonnull Charset charset,
+                                   int parallelism, int queueCapacity, @Nonnull FileParser parser) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism");
+        if (queueCapacity < 1) throw new IllegalArgumentException("queueCapacity");
+        final HocrBatchIngester ingester = new HocrBatchIngester(parser, charset, parallelism, queueCapacity);
+        ingester.threads.execute(new Runnable() {
+            @Override
+            public void run() {
+                ingester.walk(root);
+            }
+        });
+        for (int i = 0; i < parallelism; i++) {
+            ingester.threads.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ingester.work();
+                }
+            });
+        }
+        ingester.threads.shutdown();
+        return ingester;
+    }
+
+    /**
+     * Checks if the file has an HOCR extension: <code>.hocr</code> or <code>.html</code>.
+     *
+     * @param file file
+     * @return <code>true</code> if the file should be parsed
+     */
+    public static boolean isHocrFile(@Nonnull File file) {
+        String name = file.getName().toLowerCase(Locale.US);
+        return name.endsWith(".hocr") || name.endsWith(".html");
+    }
+
+    /**
+     * Stops the batch, abandoning the files not parsed yet.
+     */
+    @Override
+    public void close() {
+        threads.shutdownNow();
+        results.clear();
+        results.offer(END_OF_RESULTS);
+    }
+
+    /**
+     * Takes the next result, waiting up to the given time if none is available.
+     *
+     * @param timeout maximum time to wait
+     * @param unit    unit of <code>timeout</code>
+     * @return the next result, or <code>null</code> if there are no more results or the time has elapsed
+     * @throws InterruptedException if interrupted while waiting
+     * @see HocrBatchIngester#isFinished()
+     */
+    @Nullable
+    public Result poll(long timeout, @Nonnull TimeUnit unit) throws InterruptedException {
+        return unwrap(results.poll(timeout, unit));
+    }
+
+    /**
+     * Checks if all files have been parsed and all results have been taken.
+     *
+     * @return <code>true</code> if there are no more results
+     */
+    public boolean isFinished() {
+        return results.peek() == END_OF_RESULTS;
+    }
+
+    /**
+     * Takes the next result, waiting until one is available.
+     *
+     * @return the next result, or <code>null</code> if there are no more results
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Nullable
+    public Result take() throws InterruptedException {
+        return unwrap(results.take());
+    }
+
+    private Result unwrap(Result result) {
+        if (result == END_OF_RESULTS) {
+            // leave the end marker for other consumers
+            results.offer(END_OF_RESULTS);
+            return null;
+        }
+        return result;
+    }
+
+    /**
+     * Walks the directory tree depth-first, queueing the files for the workers.
+     * Directories are identified by their canonical paths, so cycles of symbolic links end the walk.
+     * The workers are always told about the end of files, unless the batch is closed.
+     */
+    private void walk(File root) {
+        boolean closed = false;
+        try {
+            HashSet<File> visited = new HashSet<File>();
+            ArrayDeque<File> stack = new ArrayDeque<File>();
+            stack.push(root);
+            while (!stack.isEmpty()) {
+                File dir = stack.pop();
+                List<File> found = new ArrayList<File>();
+                Throwable failure = null;
+                try {
+                    File canonicalDir = dir.getCanonicalFile();
+                    if (!visited.add(canonicalDir)) {
+                        throw new IOException("Directory " + dir + " is " + canonicalDir + ", which has already been walked");
+                    }
+                    File[] children = dir.listFiles();
+                    if (children == null) throw new IOException("Cannot list directory " + dir);
+                    Arrays.sort(children);
+                    for (int i = children.length - 1; i >= 0; i--) {
+                        if (children[i].isDirectory()) stack.push(children[i]);
+                    }
+                    for (File child : children) {
+                        if (child.isFile() && isHocrFile(child)) found.add(child);
+                    }
+                } catch (Throwable t) {
+                    failure = t;
+                }
+                if (failure != null) {
+                    results.put(new Result(dir, null, failure));
+                }
+                for (File file : found) {
+                    files.put(file);
+                }
+            }
+        } catch (InterruptedException e) {
+            closed = true;
+        } finally {
+            if (!closed) {
+                try {
+                    for (int i = 0; i < parallelism; i++) {
+                        files.put(END_OF_FILES);
+                    }
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses queued files until the end of files.
+     * The last worker to stop publishes the end of results, unless the batch is closed.
+     */
+    private void work() {
+        boolean closed = false;
+        try {
+            while (true) {
+                File file = files.take();
+                if (file == END_OF_FILES) break;
+                Result result;
+                try {
+                    result = new Result(file, parser.parse(file, charset), null);
+                } catch (Throwable t) {
+                    result = new Result(file, null, t);
+                }
+                results.put(result);
+            }
+        } catch (InterruptedException e) {
+            // close() publishes the end marker
+            closed = true;
+        } finally {
+            if (runningWorkers.decrementAndGet() == 0 && !closed) {
+                try {
+                    results.put(END_OF_RESULTS);
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            }
+        }
+    }
+}
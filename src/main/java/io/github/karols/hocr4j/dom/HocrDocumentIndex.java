@@ -0,0 +1,345 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * An index of pages of an HOCR file, allowing to parse any single page without parsing the entire file.
+ * <br/>
+ * The index is built by scanning the file once, without building anything,
+ * and records the byte range of every non-blank element of the first <code>&lt;body&gt;</code> tag,
+ * which are the pages as found by <code>HocrParser.parse</code>.
+ * Pages are numbered consecutively, starting from 1.
+ * <br/>
+ * The file encoding has to be ASCII-compatible, like UTF-8 or ISO-8859-2,
+ * so that markup characters are always encoded as single bytes.
+ * <br/>
+ * The index can be saved to a file and loaded later;
+ * a loaded index is rejected if the HOCR file has changed since the index was built.
+ */
+@Immutable
+public final class HocrDocumentIndex {
+
+    private static final int MAGIC = 0x68496478;
+    private static final int VERSION = 1;
+
+    private final Charset charset;
+    private final long[] ends;
+    private final File file;
+    private final long fileLastModified;
+    private final long fileLength;
+    private final long[] starts;
+
+    private HocrDocumentIndex(File file, Charset charset, long fileLength, long fileLastModified, long[] starts, long[] ends) {
+        this.file = file;
+        this.charset = charset;
+        this.fileLength = fileLength;
+        this.fileLastModified = fileLastModified;
+        this.starts = starts;
+        this.ends = ends;
+    }
+
+    /**
+     * Builds an index of an UTF-8 encoded HOCR file.
+     *
+     * @param file HOCR file
+     * @return index of the file
+     * @throws IOException if reading the file fails
+     */
+    @Nonnull
+    public static HocrDocumentIndex build(@Nonnull File file) throws IOException {
+        return build(file, Charsets.UTF_8);
+    }
+
+    /**
+     * Builds an index of an HOCR file.
+     *
+     * @param file    HOCR file
+     * @param charset encoding of the file, has to be ASCII-compatible
+     * @return index of the file
+     * @throws IOException if reading the file fails
+     */
+    @Nonnull
+    public static HocrDocumentIndex build(@Nonnull File file, @Nonnull Charset charset) throws IOException {
+        long fileLength = file.length();
+        long fileLastModified = file.lastModified();
+        long[] starts = new long[16];
+        long[] ends = new long[16];
+        int count = 0;
+        InputStream in = new FileInputStream(file);
+        try {
+            // each byte becomes a single character, so offsets in characters are offsets in bytes
+            HocrReader reader = new HocrReader(new InputStreamReader(in, Charsets.ISO_8859_1));
+            boolean inBody = false;
+            int depth = 0;
+            long pageStart = 0;
+            scan:
+            while (true) {
+                HocrReader.Event event = reader.next();
+                if (event == HocrReader.Event.END_DOCUMENT) break;
+                long offset = reader.getOffset();
+                long rangeStart = -1;
+                if (!inBody) {
+                    inBody = event == HocrReader.Event.START_TAG && reader.getTagName().equals("body");
+                    continue;
+                }
+                switch (event) {
+                    case START_TAG:
+                        if (depth == 0) pageStart = offset;
+                        depth++;
+                        break;
+                    case END_TAG:
+                        if (depth == 0) break scan;
+                        depth--;
+                        if (depth == 0) rangeStart = pageStart;
+                        break;
+                    default:
+                        if (depth == 0 && !isBlank(reader.getRawToken(), charset)) rangeStart = offset;
+                        break;
+                }
+                if (rangeStart >= 0) {
+                    if (count == starts.length) {
+                        starts = grow(starts);
+                        ends = grow(ends);
+                    }
+                    starts[count] = rangeStart;
+                    ends[count] = offset + reader.getTokenEnd() - reader.getTokenStart();
+                    count++;
+                }
+            }
+            if (depth > 0) {
+                if (count == starts.length) {
+                    starts = grow(starts);
+                    ends = grow(ends);
+                }
+                starts[count] = pageStart;
+                ends[count] = reader.getOffset();
+                count++;
+            }
+        } finally {
+            in.close();
+        }
+        return new HocrDocumentIndex(file, charset, fileLength, fileLastModified,
+                trim(starts, count), trim(ends, count));
+    }
+
+    /**
+     * Returns the default location of the saved index of the given HOCR file:
+     * a file in the same directory, with <code>.idx</code> appended to the name.
+     *
+     * @param file HOCR file
+     * @return index file
+     */
+    @Nonnull
+    public static File getDefaultIndexFile(@Nonnull File file) {
+        return new File(file.getPath() + ".idx");
+    }
+
+    /**
+     * Loads a saved index of an HOCR file.
+     *
+     * @param file      HOCR file
+     * @param indexFile file with the saved index
+     * @return index of the file
+     * @throws IOException if reading fails, the index file is invalid, or the HOCR file has changed
+     */
+    @Nonnull
+    public static HocrDocumentIndex load(@Nonnull File file, @Nonnull File indexFile) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not an HOCR index file: " + indexFile);
+            }
+            Charset charset = Charset.forName(in.readUTF());
+            long fileLength = in.readLong();
+            long fileLastModified = in.readLong();
+            if (fileLength != file.length() || fileLastModified != file.lastModified()) {
+                throw new IOException("HOCR file has changed since the index was built: " + file);
+            }
+            int count = in.readInt();
+            long[] starts = new long[count];
+            long[] ends = new long[count];
+            for (int i = 0; i < count; i++) {
+                starts[i] = in.readLong();
+                ends[i] = in.readLong();
+            }
+            return new HocrDocumentIndex(file, charset, fileLength, fileLastModified, starts, ends);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Loads the index of an UTF-8 encoded HOCR file from its default location,
+     * or, if it does not exist or is out of date, builds it and saves it there.
+     *
+     * @param file HOCR file
+     * @return index of the file
+     * @throws IOException if reading the HOCR file or saving the index fails
+     * @see HocrDocumentIndex#getDefaultIndexFile(File)
+     */
+    @Nonnull
+    public static HocrDocumentIndex open(@Nonnull File file) throws IOException {
+        File indexFile = getDefaultIndexFile(file);
+        if (indexFile.isFile()) {
+            try {
+                return load(file, indexFile);
+            } catch (IOException e) {
+                // rebuild the index
+            }
+        }
+        HocrDocumentIndex index = build(file);
+        index.save(indexFile);
+        return index;
+    }
+
+    private static long[] grow(long[] array) {
+        long[] result = new long[array.length * 2];
+        System.arraycopy(array, 0, result, 0, array.length);
+        return result;
+    }
+
+    private static boolean isBlank(String latin1Text, Charset charset) {
+        String text = new String(latin1Text.getBytes(Charsets.ISO_8859_1), charset);
+        return HocrText.isBlank(text, 0, text.length());
+    }
+
+    private static long[] trim(long[] array, int length) {
+        long[] result = new long[length];
+        System.arraycopy(array, 0, result, 0, length);
+        return result;
+    }
+
+    private int checkPageNo(int pageNo) {
+        if (pageNo < 1 || pageNo > starts.length) {
+            throw new IndexOutOfBoundsException("Page " + pageNo + " of " + starts.length);
+        }
+        return pageNo - 1;
+    }
+
+    /**
+     * Returns the indexed HOCR file.
+     *
+     * @return HOCR file
+     */
+    @Nonnull
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * Reads and parses a single page.
+     * Only the bytes of that page are read from the file.
+     *
+     * @param pageNo page number, from 1 to <code>getPageCount()</code>
+     * @return the page
+     * @throws IOException               if reading the file fails
+     * @throws IndexOutOfBoundsException if there is no such page
+     * @throws IllegalArgumentException  if the page is not valid HOCR
+     */
+    @Nonnull
+    public Page getPage(int pageNo) throws IOException {
+        int i = checkPageNo(pageNo);
+        long length = ends[i] - starts[i];
+        if (length > Integer.MAX_VALUE) throw new IOException("Page " + pageNo + " is too large");
+        byte[] bytes = new byte[(int) length];
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            raf.seek(starts[i]);
+            raf.readFully(bytes);
+        } finally {
+            raf.close();
+        }
+        if (charset.equals(Charsets.UTF_8)) {
+            return HocrParser.parsePage(new Utf8Sequence(ByteBuffer.wrap(bytes)), 0, bytes.length, pageNo);
+        }
+        String hocr = new String(bytes, charset);
+        return HocrParser.parsePage(hocr, 0, hocr.length(), pageNo);
+    }
+
+    /**
+     * Returns the number of pages in the file.
+     *
+     * @return number of pages
+     */
+    public int getPageCount() {
+        return starts.length;
+    }
+
+    /**
+     * Returns the length of the page, in bytes.
+     *
+     * @param pageNo page number, from 1 to <code>getPageCount()</code>
+     * @return length of the page
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public long getPageLength(int pageNo) {
+        int i = checkPageNo(pageNo);
+        return ends[i] - starts[i];
+    }
+
+    /**
+     * Returns the offset of the page from the beginning of the file, in bytes.
+     *
+     * @param pageNo page number, from 1 to <code>getPageCount()</code>
+     * @return offset of the page
+     * @throws IndexOutOfBoundsException if there is no such page
+     */
+    public long getPageOffset(int pageNo) {
+        return starts[checkPageNo(pageNo)];
+    }
+
+    /**
+     * Saves the index to a file.
+     *
+     * @param indexFile file to save the index to
+     * @throws IOException if writing fails
+     */
+    public void save(@Nonnull File indexFile) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(indexFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(charset.name());
+            out.writeLong(fileLength);
+            out.writeLong(fileLastModified);
+            out.writeInt(starts.length);
+            for (int i = 0; i < starts.length; i++) {
+                out.writeLong(starts[i]);
+                out.writeLong(ends[i]);
+            }
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Splits an HOCR document into tokens, tolerating malformed markup.
+ * <br/>
+ * A token is either a text run up to the next <code>&lt;</code> character,
+ * or a tag from a <code>&lt;</code> character up to the next <code>&gt;</code> character.
+ * If another <code>&lt;</code> character comes first, the tag is cut short before it,
+ * unless there is no <code>&gt;</code> character in the rest of the document at all,
+ * in which case the rest of the document is a single token.
+ * <br/>
+ * The position of the next <code>&gt;</code> character is remembered between tokens,
+ * so the lexing takes linear time even on documents full of stray <code>&lt;</code> characters.
+ * Tokens have to be requested in document order.
+ */
+final class HocrLexer {
+
+    private int knownClosingAt;
+    private int length;
+    private boolean noMoreClosings;
+    private CharSequence source;
+
+    /**
+     * Creates a lexer for the given document.
+     *
+     * @param source HOCR document
+     */
+    HocrLexer(@Nonnull CharSequence source) {
+        reset(source);
+    }
+
+    private int indexOf(char c, int from) {
+        if (source instanceof String) {
+            return ((String) source).indexOf(c, from);
+        }
+        if (source instanceof Utf8Sequence) {
+            return ((Utf8Sequence) source).indexOf(c, from);
+        }
+        for (int i = from; i < length; i++) {
+            if (source.charAt(i) == c) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Finds the first <code>&gt;</code> character after the given index,
+     * scanning every character at most once across consecutive calls.
+     */
+    private int closingAfter(int index) {
+        if (knownClosingAt > index) return knownClosingAt;
+        if (noMoreClosings) return -1;
+        knownClosingAt = indexOf('>', index + 1);
+        if (knownClosingAt < 0) noMoreClosings = true;
+        return knownClosingAt;
+    }
+
+    /**
+     * Starts lexing another document, reusing this lexer.
+     *
+     * @param source HOCR document
+     * @return this lexer
+     */
+    @Nonnull
+    HocrLexer reset(@Nonnull CharSequence source) {
+        this.source = source;
+        this.length = source.length();
+        this.knownClosingAt = -1;
+        this.noMoreClosings = false;
+        return this;
+    }
+
+    /**
+     * Finds the end of the token starting at the given index.
+     * The index has to be a token boundary not earlier than the start of the previously found token.
+     *
+     * @param offset index of the first character of the token
+     * @return index after the last character of the token, or <code>offset</code> at the end of the document
+     */
+    int tokenEnd(int offset) {
+        if (offset >= length) return offset;
+        if (source.charAt(offset) != '<') {
+            int openedAt = indexOf('<', offset);
+            return openedAt < 0 ? length : openedAt;
+        }
+        int closedAt = closingAfter(offset);
+        if (closedAt < 0) return length;
+        int nextOpening = indexOf('<', offset + 1);
+        if (nextOpening >= 0 && nextOpening < closedAt) {
+            // malformed markup: the tag is cut short before the next one
+            return nextOpening;
+        }
+        return closedAt + 1;
+    }
+}
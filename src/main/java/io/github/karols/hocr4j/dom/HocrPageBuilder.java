@@ -0,0 +1,417 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Area;
+import io.github.karols.hocr4j.Bounds;
+import io.github.karols.hocr4j.BoundsAccumulator;
+import io.github.karols.hocr4j.Line;
+import io.github.karols.hocr4j.Page;
+import io.github.karols.hocr4j.Paragraph;
+import io.github.karols.hocr4j.TitleProperties;
+import io.github.karols.hocr4j.Word;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Builds pages directly from a stream of tag and text events,
+ * without creating a DOM tree first.
+ * <br/>
+ * The resulting pages are the same as the ones built from DOM elements
+ * by <code>HocrParser.parse(List)</code>:
+ * pages are the non-blank elements of the first <code>&lt;body&gt;</code> tag,
+ * any end tag closes the innermost open element,
+ * and invalid elements cause <code>IllegalArgumentException</code>.
+ * The only difference is that elements without the <code>title</code> attribute
+ * are treated as having no bounds instead of causing <code>NullPointerException</code>.
+ * <br/>
+ * Pages not selected by the parse options and elements below the selected level
+ * are skipped by counting their tags, without decoding or validating them.
+ */
+final class HocrPageBuilder {
+
+    private static final int BEFORE_BODY = 0;
+    private static final int BODY = 1;
+    private static final int PAGE = 2;
+    private static final int AREA = 3;
+    private static final int PARAGRAPH = 4;
+    private static final int LINE = 5;
+    private static final int WORD = 6;
+    private static final int AFTER_BODY = 7;
+    private static final int SKIP = 8;
+
+    /**
+     * Computes bounds of elements without a bounding box; reused for all elements.
+     */
+    private final BoundsAccumulator bounds = new BoundsAccumulator();
+    private final ArrayDeque<Page> completedPages = new ArrayDeque<Page>();
+    private final HocrParseOptions options;
+    private int pageNo;
+    private final TagScanner scanner = new TagScanner();
+    private int skipDepth;
+    private int skipReturnState;
+    private int state = BEFORE_BODY;
+
+    private String clazz;
+    private CharSequence tagSource;
+    private int titleEnd;
+    private int titleStart;
+
+    private ArrayList<Area> areas;
+    private ArrayList<Line> lines;
+    private ArrayList<Paragraph> paragraphs;
+    private ArrayList<Word> words;
+    private Bounds pageBounds;
+    private Bounds areaBounds;
+    private Bounds paragraphBounds;
+    private Bounds lineBounds;
+
+    private boolean wordBold;
+    private Bounds wordBounds;
+    private int wordDepth;
+    private boolean wordFirstChildPending;
+    private boolean wordItalic;
+    private final StringBuilder wordText = new StringBuilder();
+
+    /**
+     * Creates a builder.
+     *
+     * @param startingPageNumber page number for the first page
+     */
+    HocrPageBuilder(int startingPageNumber) {
+        this(startingPageNumber, HocrParseOptions.all());
+    }
+
+    /**
+     * Creates a builder building only the pages and levels selected by the options.
+     *
+     * @param startingPageNumber page number for the first page
+     * @param options            which pages and levels to build
+     */
+    HocrPageBuilder(int startingPageNumber, @Nonnull HocrParseOptions options) {
+        this.pageNo = startingPageNumber;
+        this.options = options;
+    }
+
+    /**
+     * Parses bounds from the <code>title</code> attribute of the current tag,
+     * decoding it only if it contains entities.
+     */
+    @Nullable
+    private Bounds boundsFromTitle() {
+        if (titleStart < 0) return null;
+        for (int i = titleStart; i < titleEnd; i++) {
+            if (tagSource.charAt(i) == '&') {
+                return TitleProperties.parseBounds(HocrText.decode(tagSource, titleStart, titleEnd));
+            }
+        }
+        return TitleProperties.parseBounds(tagSource, titleStart, titleEnd);
+    }
+
+    private static IllegalArgumentException invalid(CharSequence source, int start, int end) {
+        return new IllegalArgumentException(source.subSequence(start, end).toString());
+    }
+
+    /**
+     * Reports the end of an element.
+     */
+    void endTag() {
+        switch (state) {
+            case BODY:
+                state = AFTER_BODY;
+                break;
+            case PAGE:
+                completedPages.add(new Page(pageNo++, areas,
+                        pageBounds != null ? pageBounds : bounds.reset().addAll(areas).getBounds()));
+                areas = null;
+                state = afterPage();
+                break;
+            case AREA:
+                areas.add(new Area(paragraphs,
+                        areaBounds != null ? areaBounds : bounds.reset().addAll(paragraphs).getBounds()));
+                paragraphs = null;
+                state = PAGE;
+                break;
+            case PARAGRAPH:
+                paragraphs.add(new Paragraph(lines,
+                        paragraphBounds != null ? paragraphBounds : bounds.reset().addAll(lines).getBounds()));
+                lines = null;
+                state = AREA;
+                break;
+            case LINE:
+                lines.add(new Line(words,
+                        lineBounds != null ? lineBounds : bounds.reset().addAll(words).getBounds()));
+                words = null;
+                state = PARAGRAPH;
+                break;
+            case SKIP:
+                if (skipDepth == 0) {
+                    state = skipReturnState == BODY ? afterPage() : skipReturnState;
+                } else {
+                    skipDepth--;
+                }
+                break;
+            case WORD:
+                wordFirstChildPending = false;
+                if (wordDepth == 0) {
+                    words.add(new Word(wordText.toString(), wordBounds, wordBold, wordItalic));
+                    state = LINE;
+                } else {
+                    wordDepth--;
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Returns the state after a page, which is the end of the body if no more pages can be selected.
+     */
+    private int afterPage() {
+        return pageNo > options.getLastPage() ? AFTER_BODY : BODY;
+    }
+
+    /**
+     * Starts building pages immediately, as if the opening <code>&lt;body&gt;</code> tag has been reported.
+     * Used for building pages from a range of the document.
+     */
+    void enterBody() {
+        if (state != BEFORE_BODY) throw new IllegalStateException();
+        state = BODY;
+    }
+
+    /**
+     * Reports the end of the document, closing all elements that are still open.
+     */
+    void finish() {
+        while (state != BEFORE_BODY && state != AFTER_BODY) {
+            endTag();
+        }
+        state = AFTER_BODY;
+    }
+
+    /**
+     * Checks if any completed page is waiting to be polled.
+     *
+     * @return <code>true</code> if there is a completed page
+     */
+    boolean hasPage() {
+        return !completedPages.isEmpty();
+    }
+
+    /**
+     * Checks if the body of the document has already been closed,
+     * so no more pages can be built.
+     *
+     * @return <code>true</code> if the body is closed
+     */
+    boolean isFinished() {
+        return state == AFTER_BODY;
+    }
+
+    /**
+     * Finishes the current document and prepares for building pages of another one,
+     * continuing the page numbering.
+     * If no more pages can be selected, the builder stays finished.
+     */
+    void nextDocument() {
+        finish();
+        if (pageNo <= options.getLastPage()) {
+            state = BEFORE_BODY;
+        }
+    }
+
+    /**
+     * Removes and returns the earliest completed page.
+     *
+     * @return completed page, or <code>null</code> if no page has been completed yet
+     */
+    @Nullable
+    Page pollPage() {
+        return completedPages.poll();
+    }
+
+    /**
+     * Reads the <code>class</code> attribute and finds the <code>title</code> attribute of the current tag.
+     */
+    private void readAttributes(CharSequence source) {
+        clazz = null;
+        tagSource = source;
+        titleStart = -1;
+        while (scanner.nextAttribute()) {
+            if (scanner.attributeNameIs("title")) {
+                titleStart = scanner.attributeValueStart;
+                titleEnd = scanner.attributeValueEnd;
+            } else if (scanner.attributeNameIs("class")) {
+                clazz = scanner.getAttributeValueSymbol();
+            }
+        }
+    }
+
+    /**
+     * Skips the element of the current tag, returning to the given state after its end.
+     */
+    private void skip(int returnState) {
+        skipDepth = 0;
+        skipReturnState = returnState;
+        state = SKIP;
+    }
+
+    /**
+     * Applies a tag from the first-child chain of a word, the same way as <code>Word(HocrElement)</code> does.
+     */
+    private void startWordChainTag(CharSequence source, int start, int end) {
+        if (scanner.tagNameIs("span")) {
+            readAttributes(source);
+            if ("ocrx_word".equals(clazz) || "ocr_word".equals(clazz)) {
+                wordBounds = boundsFromTitle();
+                return;
+            }
+        } else if (scanner.tagNameIs("strong") || scanner.tagNameIs("b")) {
+            wordBold = true;
+            return;
+        } else if (scanner.tagNameIs("em") || scanner.tagNameIs("i")) {
+            wordItalic = true;
+            return;
+        }
+        throw invalid(source, start, end);
+    }
+
+    /**
+     * Reports an opening tag, or the first half of a self-closing tag.
+     *
+     * @param source text containing the opening tag
+     * @param start  index of the <code>&lt;</code> character of the opening tag
+     * @param end    index after the <code>&gt;</code> character of the opening tag
+     */
+    void startTag(@Nonnull CharSequence source, int start, int end) {
+        switch (state) {
+            case BEFORE_BODY:
+                if (scanner.reset(source, start, end).tagNameIs("body")) {
+                    state = BODY;
+                }
+                break;
+            case BODY:
+                if (pageNo > options.getLastPage()) {
+                    state = AFTER_BODY;
+                    break;
+                }
+                if (!options.includesPage(pageNo)) {
+                    pageNo++;
+                    skip(BODY);
+                    break;
+                }
+                if (!scanner.reset(source, start, end).tagNameIs("div")) throw invalid(source, start, end);
+                readAttributes(source);
+                pageBounds = boundsFromTitle();
+                areas = new ArrayList<Area>();
+                state = PAGE;
+                break;
+            case PAGE:
+                if (options.getLevel() == HocrParseOptions.Level.PAGES) {
+                    skip(PAGE);
+                    break;
+                }
+                if (!scanner.reset(source, start, end).tagNameIs("div")) throw invalid(source, start, end);
+                readAttributes(source);
+                areaBounds = boundsFromTitle();
+                paragraphs = new ArrayList<Paragraph>();
+                state = AREA;
+                break;
+            case AREA:
+                if (options.getLevel() == HocrParseOptions.Level.AREAS) {
+                    skip(AREA);
+                    break;
+                }
+                if (!scanner.reset(source, start, end).tagNameIs("p")) throw invalid(source, start, end);
+                readAttributes(source);
+                paragraphBounds = boundsFromTitle();
+                lines = new ArrayList<Line>();
+                state = PARAGRAPH;
+                break;
+            case PARAGRAPH:
+                if (options.getLevel() == HocrParseOptions.Level.PARAGRAPHS) {
+                    skip(PARAGRAPH);
+                    break;
+                }
+                if (!scanner.reset(source, start, end).tagNameIs("span")) throw invalid(source, start, end);
+                readAttributes(source);
+                if (!"ocr_line".equals(clazz)) throw invalid(source, start, end);
+                lineBounds = boundsFromTitle();
+                words = new ArrayList<Word>();
+                state = LINE;
+                break;
+            case LINE:
+                if (options.getLevel() == HocrParseOptions.Level.LINES) {
+                    skip(LINE);
+                    break;
+                }
+                wordText.setLength(0);
+                wordBounds = null;
+                wordBold = false;
+                wordItalic = false;
+                wordDepth = 0;
+                scanner.reset(source, start, end);
+                startWordChainTag(source, start, end);
+                wordFirstChildPending = true;
+                state = WORD;
+                break;
+            case SKIP:
+                skipDepth++;
+                break;
+            case WORD:
+                if (wordFirstChildPending) {
+                    scanner.reset(source, start, end);
+                    startWordChainTag(source, start, end);
+                }
+                wordDepth++;
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * Reports a text run.
+     *
+     * @param source text containing the HTML-encoded text
+     * @param start  index of the first character of the text
+     * @param end    index after the last character of the text
+     */
+    void text(@Nonnull CharSequence source, int start, int end) {
+        switch (state) {
+            case BODY:
+            case PAGE:
+            case AREA:
+            case PARAGRAPH:
+                if (!HocrText.isBlank(source, start, end)) throw invalid(source, start, end);
+                break;
+            case LINE:
+                if (options.getLevel() != HocrParseOptions.Level.LINES) {
+                    words.add(new Word(HocrText.decode(source, start, end), null, false, false));
+                }
+                break;
+            case WORD:
+                wordFirstChildPending = false;
+                wordText.append(HocrText.decode(source, start, end));
+                break;
+            default:
+                break;
+        }
+    }
+}
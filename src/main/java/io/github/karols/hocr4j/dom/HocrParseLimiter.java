@@ -0,0 +1,174 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * Limits how many asynchronous parses run at once.
+ * <br/>
+ * Documents at least <code>largeDocumentLength</code> characters long are large,
+ * and only <code>maxConcurrentLarge</code> of them can run at once,
+ * so the remaining slots are always available for small documents
+ * and a burst of huge documents cannot hold up small ones.
+ * Parses that cannot start yet wait in the limiter, without occupying any executor thread;
+ * when a slot is freed, waiting small documents are started before waiting large ones.
+ * <br/>
+ * A limiter can be shared by any number of threads and executors.
+ *
+ * @see HocrParser#parseAsync(CharSequence, int, HocrParseOptions, Executor, HocrParseLimiter)
+ */
+@ThreadSafe
+public final class HocrParseLimiter {
+
+    private final ArrayDeque<Runnable> largeQueue = new ArrayDeque<Runnable>();
+    private final int largeDocumentLength;
+    private final int maxConcurrent;
+    private final int maxConcurrentLarge;
+    private int running = 0;
+    private int runningLarge = 0;
+    private final ArrayDeque<Runnable> smallQueue = new ArrayDeque<Runnable>();
+
+    /**
+     * Creates a limiter treating all documents equally.
+     *
+     * @param maxConcurrent maximum number of parses running at once
+     */
+    public HocrParseLimiter(int maxConcurrent) {
+        this(maxConcurrent, Integer.MAX_VALUE, maxConcurrent);
+    }
+
+    /**
+     * Creates a limiter with a separate limit for large documents.
+     *
+     * @param maxConcurrent       maximum number of parses running at once
+     * @param largeDocumentLength minimum length of a large document, in characters
+     * @param maxConcurrentLarge  maximum number of parses of large documents running at once,
+     *                            less than <code>maxConcurrent</code> to reserve slots for small documents
+     */
+    public HocrParseLimiter(int maxConcurrent, int largeDocumentLength, int maxConcurrentLarge) {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("maxConcurrent");
+        if (maxConcurrentLarge < 1 || maxConcurrentLarge > maxConcurrent) {
+            throw new IllegalArgumentException("maxConcurrentLarge");
+        }
+        this.maxConcurrent = maxConcurrent;
+        this.largeDocumentLength = largeDocumentLength;
+        this.maxConcurrentLarge = maxConcurrentLarge;
+    }
+
+    /**
+     * Returns the number of parses currently running.
+     *
+     * @return number of running parses
+     */
+    public synchronized int getRunning() {
+        return running;
+    }
+
+    /**
+     * Returns the number of parses waiting for a free slot.
+     *
+     * @return number of waiting parses
+     */
+    public synchronized int getWaiting() {
+        return smallQueue.size() + largeQueue.size();
+    }
+
+    /**
+     * Checks if a document of the given length is large.
+     */
+    boolean isLarge(int documentLength) {
+        return documentLength >= largeDocumentLength;
+    }
+
+    /**
+     * Frees the slot taken by a finished parse and starts waiting parses.
+     *
+     * @param large whether the finished document was large
+     */
+    void release(boolean large) {
+        Runnable next;
+        synchronized (this) {
+            running--;
+            if (large) runningLarge--;
+            next = pollStartable();
+        }
+        while (next != null) {
+            next.run();
+            synchronized (this) {
+                next = pollStartable();
+            }
+        }
+    }
+
+    /**
+     * Takes the next waiting parse that can start now, taking its slot.
+     * Must be called with the lock held.
+     */
+    private Runnable pollStartable() {
+        if (running >= maxConcurrent) return null;
+        if (!smallQueue.isEmpty()) {
+            running++;
+            return smallQueue.poll();
+        }
+        if (!largeQueue.isEmpty() && runningLarge < maxConcurrentLarge) {
+            running++;
+            runningLarge++;
+            return largeQueue.poll();
+        }
+        return null;
+    }
+
+    /**
+     * Runs the task on the executor as soon as a slot is free.
+     * The task has to call <code>release</code> when it finishes.
+     * If the executor rejects the task, the slot is released and <code>onRejected</code> is run instead.
+     *
+     * @param large      whether the document is large
+     * @param task       the parse
+     * @param executor   executor to run the task on
+     * @param onRejected run if the executor rejects the task
+     */
+    void submit(final boolean large, @Nonnull final Runnable task,
+                @Nonnull final Executor executor, @Nonnull final Runnable onRejected) {
+        Runnable start = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    executor.execute(task);
+                } catch (RejectedExecutionException e) {
+                    onRejected.run();
+                    release(large);
+                }
+            }
+        };
+        synchronized (this) {
+            // all waiting parses that could start have already been started, so a free slot is enough
+            boolean canStart = running < maxConcurrent && (large
+                    ? runningLarge < maxConcurrentLarge && largeQueue.isEmpty()
+                    : smallQueue.isEmpty());
+            if (!canStart) {
+                (large ? largeQueue : smallQueue).add(start);
+                return;
+            }
+            running++;
+            if (large) runningLarge++;
+        }
+        start.run();
+    }
+}
@@ -0,0 +1,150 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
+import com.google.common.collect.Range;
+
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * Options for selective parsing: which pages to build and how deep.
+ * <br/>
+ * Pages that are not selected and elements below the selected level are skipped while lexing:
+ * their tags are only counted to find where they end,
+ * and they are neither decoded nor validated.
+ * Skipped pages still take their page numbers, so selected pages are numbered as in the entire document.
+ * <br/>
+ * Options are immutable; each <code>with</code> method returns a modified copy.
+ */
+@Immutable
+public final class HocrParseOptions {
+
+    /**
+     * The deepest level of elements to build.
+     */
+    public enum Level {
+        /**
+         * Only pages and their bounds, without any areas.
+         */
+        PAGES,
+        /**
+         * Pages and areas, without any paragraphs.
+         */
+        AREAS,
+        /**
+         * Pages, areas and paragraphs, without any lines.
+         */
+        PARAGRAPHS,
+        /**
+         * Pages, areas, paragraphs and lines, without any words.
+         */
+        LINES,
+        /**
+         * Everything, including words.
+         */
+        WORDS
+    }
+
+    private static final HocrParseOptions ALL =
+            new HocrParseOptions(Predicates.<Integer>alwaysTrue(), Integer.MAX_VALUE, Level.WORDS);
+
+    private final int lastPage;
+    private final Level level;
+    private final Predicate<? super Integer> pages;
+
+    private HocrParseOptions(Predicate<? super Integer> pages, int lastPage, Level level) {
+        this.pages = pages;
+        this.lastPage = lastPage;
+        this.level = level;
+    }
+
+    /**
+     * Returns options selecting all pages and all levels,
+     * which give the same result as parsing without any options.
+     *
+     * @return default options
+     */
+    @Nonnull
+    public static HocrParseOptions all() {
+        return ALL;
+    }
+
+    /**
+     * Returns the number of the last page that can be selected,
+     * so parsing can stop after it.
+     *
+     * @return last page number, or <code>Integer.MAX_VALUE</code> if not known
+     */
+    public int getLastPage() {
+        return lastPage;
+    }
+
+    /**
+     * Returns the deepest level of elements to build.
+     *
+     * @return level
+     */
+    @Nonnull
+    public Level getLevel() {
+        return level;
+    }
+
+    /**
+     * Checks if the page with the given number is selected.
+     *
+     * @param pageNo page number
+     * @return <code>true</code> if the page should be built
+     */
+    public boolean includesPage(int pageNo) {
+        return pageNo <= lastPage && pages.apply(pageNo);
+    }
+
+    /**
+     * Returns options building elements only down to the given level.
+     *
+     * @param level deepest level of elements to build
+     * @return modified options
+     */
+    @Nonnull
+    public HocrParseOptions withLevel(@Nonnull Level level) {
+        return new HocrParseOptions(pages, lastPage, level);
+    }
+
+    /**
+     * Returns options selecting only pages in the given range.
+     * Parsing stops as soon as the last page of the range is built.
+     *
+     * @param firstPage number of the first selected page
+     * @param lastPage  number of the last selected page, inclusive
+     * @return modified options
+     */
+    @Nonnull
+    public HocrParseOptions withPageRange(int firstPage, int lastPage) {
+        return new HocrParseOptions(Range.closed(firstPage, lastPage), lastPage, level);
+    }
+
+    /**
+     * Returns options selecting only pages whose numbers satisfy the given predicate.
+     *
+     * @param pages predicate on page numbers
+     * @return modified options
+     */
+    @Nonnull
+    public HocrParseOptions withPages(@Nonnull Predicate<? super Integer> pages) {
+        return new HocrParseOptions(pages, Integer.MAX_VALUE, level);
+    }
+}
@@ -14,86 +14,123 @@
 package io.github.karols.hocr4j.dom;
 
 import io.github.karols.hocr4j.Page;
-import io.github.karols.hocr4j.utils.ListWrappingQueue;
 
+import com.google.common.base.Charsets;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.Uninterruptibles;
 
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public final class HocrParser {
 
-    private HocrParser(){}
+    private static final int STREAM_BUFFER_SIZE = 64 * 1024;
 
-    private static int nonnegative(int i) {
-        if (i < 0) throw new IllegalStateException();
-        return i;
-    }
+    private HocrParser(){}
 
-    static int elementLength(String hocr, int offset) {
-        if (hocr.length() <= offset) return 0;
-        if (hocr.charAt(offset) == '<') {
-            int closedAt = hocr.indexOf('>', offset);
-            int nextOpening = hocr.indexOf('<', offset + 1);
-            if (nextOpening > 0 && nextOpening < closedAt) {
-                // DAMN MALFORMED XML!!!!
-                if (hocr.length() <= offset + 1) {
-                    return nonnegative(hocr.length() - offset);
-                } else {
-                    if (hocr.charAt(offset + 1) != '<') {
-                        return nonnegative(1 + elementLength(hocr, offset + 1));
-                    } else {
-                        return 1;
-                    }
-                }
-            } else {
-                if (closedAt < 0) {
-                    return nonnegative(hocr.length() - offset);
-                } else {
-                    return nonnegative(closedAt + 1 - offset);
-                }
-            }
-        } else {
-            int openedAt = hocr.indexOf('<', offset);
-            if (openedAt < 0) return nonnegative(hocr.length() - offset);
-            else return nonnegative(openedAt - offset);
+    /**
+     * Splits an HOCR document into tokens without copying them.
+     * The tokens are the same as the ones used by <code>createAst</code>.
+     *
+     * @param hocr HOCR document
+     * @return tokens of the document
+     */
+    @Nonnull
+    public static HocrTokens tokenize(@Nonnull CharSequence hocr) {
+        HocrTokens result = new HocrTokens(hocr);
+        HocrLexer lexer = new HocrLexer(hocr);
+        int offset = 0;
+        while (hocr.length() > offset) {
+            int end = lexer.tokenEnd(offset);
+            result.add(offset, end - offset);
+            offset = end;
         }
+        return result;
     }
 
     static ArrayList<String> lex(String hocr) {
-        ArrayList<String> result = new ArrayList<String>();
-        int offset = 0;
-        while (hocr.length() > offset) {
-            int elemLength = elementLength(hocr, offset);
-            String elem = hocr.substring(offset, offset + elemLength);
-            result.add(elem);
-            offset += elemLength;
+        HocrTokens tokens = tokenize(hocr);
+        ArrayList<String> result = new ArrayList<String>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            result.add(tokens.getString(i));
         }
         return result;
     }//tested
 
     static List<HocrElement> createAst(Queue<String> tokens) {
-        ArrayList<HocrElement> result = new ArrayList<HocrElement>();
+        // the tags open at each depth and the elements collected so far inside them
+        ArrayList<String> openTags = new ArrayList<String>();
+        ArrayList<ArrayList<HocrElement>> levels = new ArrayList<ArrayList<HocrElement>>();
+        levels.add(new ArrayList<HocrElement>());
+        TagScanner scanner = new TagScanner();
         while (!tokens.isEmpty()) {
             String t = tokens.poll();
+            ArrayList<HocrElement> level = levels.get(levels.size() - 1);
             if (t.startsWith("<") && t.endsWith(">")) {
                 if (t.startsWith("<!")) continue;
-                if (t.startsWith("</")) break;
-                if (t.endsWith("/>")) {
-                    result.add(new HocrTag(t, ImmutableList.<HocrElement>of()));
+                if (t.startsWith("</")) {
+                    if (openTags.isEmpty()) break;
+                    levels.remove(levels.size() - 1);
+                    String tag = openTags.remove(openTags.size() - 1);
+                    levels.get(levels.size() - 1).add(new HocrTag(scanner, tag, 0, tag.length(), level));
+                } else if (t.endsWith("/>")) {
+                    level.add(new HocrTag(scanner, t, 0, t.length(), ImmutableList.<HocrElement>of()));
                 } else {
-                    result.add(new HocrTag(t, createAst(tokens)));
+                    openTags.add(t);
+                    levels.add(new ArrayList<HocrElement>());
                 }
             } else {
-                result.add(new HocrText(t));
+                level.add(new HocrText(t));
             }
         }
-        return result;
+        while (!openTags.isEmpty()) {
+            ArrayList<HocrElement> level = levels.remove(levels.size() - 1);
+            String tag = openTags.remove(openTags.size() - 1);
+            levels.get(levels.size() - 1).add(new HocrTag(scanner, tag, 0, tag.length(), level));
+        }
+        return levels.get(0);
+    }
+
+    /**
+     * Creates DOM elements from the given tokens.
+     *
+     * @param tokens tokens of an HOCR document
+     * @return list of top-level elements
+     * @see HocrTreeBuilder
+     */
+    @Nonnull
+    public static List<HocrElement> createAst(@Nonnull HocrTokens tokens) {
+        return new HocrTreeBuilder().build(tokens);
     }
 
     public static List<HocrElement> createAst(String hocr) {
-        return createAst(new ListWrappingQueue<String>(lex(hocr)));
+        return new HocrTreeBuilder().build(hocr);
     }
 
     public static List<Page> parse(List<HocrElement> elements) {
@@ -115,6 +152,622 @@ public final class HocrParser {
     }
 
     public static List<Page> parse(String hocr) {
-        return parse(createAst(hocr));
+        return parse(hocr, 1);
+    }
+
+    /**
+     * Parses pages of an HOCR document in a single pass, without building the DOM tree.
+     * The result is the same as of <code>parse(createAst(hocr), startingPageNumber)</code>,
+     * except that a document without a <code>&lt;body&gt;</code> tag yields no pages
+     * and elements without the <code>title</code> attribute are treated as having no bounds.
+     *
+     * @param hocr               HOCR document
+     * @param startingPageNumber page number for the first page
+     * @return list of pages
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull CharSequence hocr, int startingPageNumber) {
+        return parse(hocr, startingPageNumber, HocrParseOptions.all());
+    }
+
+    /**
+     * Parses only the selected pages of an HOCR document, only down to the selected level.
+     * The other pages and elements are skipped while lexing, without being built.
+     * Selected pages are numbered as if all pages were parsed.
+     *
+     * @param hocr               HOCR document
+     * @param startingPageNumber page number for the first page
+     * @param options            which pages and levels to build
+     * @return list of selected pages
+     * @throws IllegalArgumentException if the structure of the selected elements is not valid HOCR
+     * @see HocrParser#parse(CharSequence, int)
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull CharSequence hocr, int startingPageNumber, @Nonnull HocrParseOptions options) {
+        HocrPageBuilder builder = new HocrPageBuilder(startingPageNumber, options);
+        build(hocr, 0, hocr.length(), builder);
+        builder.finish();
+        ArrayList<Page> result = new ArrayList<Page>();
+        for (Page p = builder.pollPage(); p != null; p = builder.pollPage()) {
+            result.add(p);
+        }
+        return result;
+    }
+
+    /**
+     * Parses only the selected pages of several HOCR documents, only down to the selected level.
+     * The pages of all the documents are numbered consecutively, starting from 1,
+     * and the selection applies to these numbers.
+     * Parsing stops as soon as no more pages can be selected.
+     *
+     * @param hocr    list of HOCR documents
+     * @param options which pages and levels to build
+     * @return list of selected pages
+     * @throws IllegalArgumentException if the structure of the selected elements is not valid HOCR
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull List<? extends CharSequence> hocr, @Nonnull HocrParseOptions options) {
+        HocrPageBuilder builder = new HocrPageBuilder(1, options);
+        ArrayList<Page> result = new ArrayList<Page>();
+        for (CharSequence h : hocr) {
+            if (builder.isFinished()) break;
+            build(h, 0, h.length(), builder);
+            builder.nextDocument();
+            for (Page p = builder.pollPage(); p != null; p = builder.pollPage()) {
+                result.add(p);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses pages of an UTF-8 encoded HOCR document without decoding the entire document.
+     * The markup is lexed byte by byte and the bounds are parsed directly from the bytes;
+     * only texts of words and the few attribute values needed are decoded to strings.
+     * The result is the same as of <code>parse(new String(bytes, UTF_8), startingPageNumber)</code>.
+     * <br/>
+     * The remaining bytes of the buffer are parsed; its position and limit are not changed.
+     *
+     * @param hocr               UTF-8 encoded HOCR document
+     * @param startingPageNumber page number for the first page
+     * @return list of pages
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     */
+    @Nonnull
+    public static List<Page> parseUtf8(@Nonnull ByteBuffer hocr, int startingPageNumber) {
+        return parse(new Utf8Sequence(hocr), startingPageNumber);
+    }
+
+    /**
+     * Parses pages of an HOCR document in parallel.
+     * A quick scan finds where each page starts and ends, without building anything,
+     * and then each page is built by a separate task run by the given executor.
+     * The result is the same as of <code>parse(hocr, startingPageNumber)</code>.
+     * <br/>
+     * If building any page fails, the exception for the earliest failed page is rethrown
+     * and the tasks for the remaining pages are cancelled.
+     *
+     * @param hocr               HOCR document
+     * @param startingPageNumber page number for the first page
+     * @param executor           executor running the tasks
+     * @return list of pages, in document order
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull CharSequence hocr, int startingPageNumber, @Nonnull Executor executor) {
+        return parse(hocr, startingPageNumber, executor, HocrParseOptions.all());
+    }
+
+    /**
+     * Parses only the selected pages of an HOCR document in parallel, only down to the selected level.
+     * Tasks are created only for the selected pages.
+     * The result is the same as of <code>parse(hocr, startingPageNumber, options)</code>.
+     *
+     * @param hocr               HOCR document
+     * @param startingPageNumber page number for the first page
+     * @param executor           executor running the tasks
+     * @param options            which pages and levels to build
+     * @return list of selected pages, in document order
+     * @throws IllegalArgumentException if the structure of the selected elements is not valid HOCR
+     * @see HocrParser#parse(CharSequence, int, Executor)
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull final CharSequence hocr, int startingPageNumber,
+                                   @Nonnull Executor executor, @Nonnull final HocrParseOptions options) {
+        final int[] ranges = findPageRanges(hocr);
+        int pageCount = ranges.length / 2;
+        ArrayList<FutureTask<Page>> tasks = new ArrayList<FutureTask<Page>>();
+        for (int i = 0; i < pageCount; i++) {
+            final int pageNo = startingPageNumber + i;
+            if (pageNo > options.getLastPage()) break;
+            if (!options.includesPage(pageNo)) continue;
+            final int start = ranges[2 * i];
+            final int end = ranges[2 * i + 1];
+            tasks.add(new FutureTask<Page>(new Callable<Page>() {
+                @Override
+                public Page call() {
+                    return parsePage(hocr, start, end, pageNo, options);
+                }
+            }));
+        }
+        ArrayList<Page> result = new ArrayList<Page>(tasks.size());
+        try {
+            for (FutureTask<Page> task : tasks) {
+                executor.execute(task);
+            }
+            for (FutureTask<Page> task : tasks) {
+                result.add(Uninterruptibles.getUninterruptibly(task));
+            }
+        } catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            for (FutureTask<Page> task : tasks) {
+                task.cancel(false);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Parses pages of an HOCR document asynchronously on the given executor.
+     * The pages are numbered consecutively, starting from 1.
+     *
+     * @param hocr     HOCR document
+     * @param executor executor running the parse
+     * @return future list of pages
+     * @see HocrParser#parseAsync(CharSequence, int, HocrParseOptions, Executor, HocrParseLimiter)
+     */
+    @Nonnull
+    public static ListenableFuture<List<Page>> parseAsync(@Nonnull CharSequence hocr, @Nonnull Executor executor) {
+        AsyncParseTask task = new AsyncParseTask(hocr, 1, HocrParseOptions.all(), null, false);
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.fail(e);
+        }
+        return task;
+    }
+
+    /**
+     * Parses pages of an HOCR document asynchronously on the given executor,
+     * as soon as the limiter has a free slot for it.
+     * Until then, the parse waits in the limiter without occupying any executor thread.
+     * The result is the same as of <code>parse(hocr, startingPageNumber, options)</code>.
+     * <br/>
+     * Cancelling the returned future before the parse starts prevents it from starting,
+     * and cancelling it while it runs stops it before the next page.
+     * If the executor rejects the parse, the future fails with <code>RejectedExecutionException</code>.
+     * The document must not be modified until the future completes.
+     *
+     * @param hocr               HOCR document
+     * @param startingPageNumber page number for the first page
+     * @param options            which pages and levels to build
+     * @param executor           executor running the parse
+     * @param limiter            limiter of concurrent parses
+     * @return future list of pages
+     */
+    @Nonnull
+    public static ListenableFuture<List<Page>> parseAsync(@Nonnull CharSequence hocr, int startingPageNumber,
+                                                          @Nonnull HocrParseOptions options,
+                                                          @Nonnull Executor executor,
+                                                          @Nonnull HocrParseLimiter limiter) {
+        boolean large = limiter.isLarge(hocr.length());
+        final AsyncParseTask task = new AsyncParseTask(hocr, startingPageNumber, options, limiter, large);
+        limiter.submit(large, task, executor, new Runnable() {
+            @Override
+            public void run() {
+                task.fail(new RejectedExecutionException());
+            }
+        });
+        return task;
+    }
+
+    /**
+     * Builds a page from the given range of a document,
+     * which should contain exactly one non-blank element of the <code>&lt;body&gt;</code> tag.
+     * The range can also be parsed on its own, without the rest of the document,
+     * because it always ends with a <code>&gt;</code> character or at the end of the document,
+     * so the tokens are split the same way.
+     *
+     * @return the page, or <code>null</code> if the range does not contain any page
+     */
+    @Nullable
+    static Page parsePage(@Nonnull CharSequence hocr, int start, int end, int pageNo) {
+        return parsePage(hocr, start, end, pageNo, HocrParseOptions.all());
+    }
+
+    /**
+     * Builds a page from the given range of a document like <code>parsePage(hocr, start, end, pageNo)</code>,
+     * only down to the level selected by the options.
+     * The page is built even if the options do not select it.
+     */
+    @Nullable
+    static Page parsePage(@Nonnull CharSequence hocr, int start, int end, int pageNo, @Nonnull HocrParseOptions options) {
+        HocrPageBuilder builder = new HocrPageBuilder(pageNo, options.withPageRange(pageNo, pageNo));
+        builder.enterBody();
+        build(hocr, start, end, builder);
+        builder.finish();
+        return builder.pollPage();
+    }
+
+    /**
+     * Feeds tokens starting in the given range of the document to the builder.
+     * Tokens are always split as in the entire document, so the range has to start at a token boundary.
+     */
+    private static void build(CharSequence hocr, int start, int end, HocrPageBuilder builder) {
+        build(hocr, start, end, builder, new HocrLexer(hocr), false);
+    }
+
+    /**
+     * Feeds tokens starting at the given offset to the builder, until the end of the range,
+     * or, if <code>untilPage</code> is set, until a page is completed.
+     * Returns the offset of the first token not fed, for continuing with the same lexer.
+     */
+    static int build(CharSequence hocr, int start, int end, HocrPageBuilder builder, HocrLexer lexer, boolean untilPage) {
+        int offset = start;
+        while (end > offset && !builder.isFinished() && !(untilPage && builder.hasPage())) {
+            int tokenEnd = lexer.tokenEnd(offset);
+            switch (HocrTokens.kindOf(hocr, offset, tokenEnd - offset)) {
+                case HocrTokens.START_TAG:
+                    builder.startTag(hocr, offset, tokenEnd);
+                    break;
+                case HocrTokens.EMPTY_TAG:
+                    builder.startTag(hocr, offset, tokenEnd);
+                    builder.endTag();
+                    break;
+                case HocrTokens.END_TAG:
+                    builder.endTag();
+                    break;
+                case HocrTokens.TEXT:
+                    builder.text(hocr, offset, tokenEnd);
+                    break;
+                default:
+                    break;
+            }
+            offset = tokenEnd;
+        }
+        return offset;
+    }
+
+    /**
+     * Finds the ranges of the non-blank elements of the first <code>&lt;body&gt;</code> tag.
+     * Returns the start and the end of each range, one after another.
+     */
+    private static int[] findPageRanges(CharSequence hocr) {
+        int[] ranges = new int[16];
+        int count = 0;
+        TagScanner scanner = new TagScanner();
+        boolean inBody = false;
+        int depth = 0;
+        int pageStart = 0;
+        HocrLexer lexer = new HocrLexer(hocr);
+        int offset = 0;
+        scan:
+        while (hocr.length() > offset) {
+            int end = lexer.tokenEnd(offset);
+            int kind = HocrTokens.kindOf(hocr, offset, end - offset);
+            int rangeStart = -1;
+            if (!inBody) {
+                if ((kind == HocrTokens.START_TAG || kind == HocrTokens.EMPTY_TAG)
+                        && scanner.reset(hocr, offset, end).tagNameIs("body")) {
+                    if (kind == HocrTokens.EMPTY_TAG) break;
+                    inBody = true;
+                }
+            } else {
+                switch (kind) {
+                    case HocrTokens.START_TAG:
+                        if (depth == 0) pageStart = offset;
+                        depth++;
+                        break;
+                    case HocrTokens.EMPTY_TAG:
+                        if (depth == 0) rangeStart = offset;
+                        break;
+                    case HocrTokens.END_TAG:
+                        if (depth == 0) break scan;
+                        depth--;
+                        if (depth == 0) rangeStart = pageStart;
+                        break;
+                    case HocrTokens.TEXT:
+                        if (depth == 0 && !HocrText.isBlank(hocr, offset, end)) rangeStart = offset;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            if (rangeStart >= 0) {
+                ranges = add(ranges, count++, rangeStart, end);
+            }
+            offset = end;
+        }
+        if (depth > 0) {
+            ranges = add(ranges, count++, pageStart, hocr.length());
+        }
+        int[] result = new int[2 * count];
+        System.arraycopy(ranges, 0, result, 0, result.length);
+        return result;
+    }
+
+    private static int[] add(int[] ranges, int index, int start, int end) {
+        if (ranges.length < 2 * index + 2) {
+            int[] newRanges = new int[ranges.length * 2];
+            System.arraycopy(ranges, 0, newRanges, 0, ranges.length);
+            ranges = newRanges;
+        }
+        ranges[2 * index] = start;
+        ranges[2 * index + 1] = end;
+        return ranges;
+    }
+
+    /**
+     * Parses pages of an UTF-8 encoded HOCR file.
+     * The pages are numbered consecutively, starting from 1.
+     *
+     * @param file HOCR file
+     * @return list of pages
+     * @throws IOException if reading the file fails
+     * @see HocrParser#parse(File, Charset)
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull File file) throws IOException {
+        return parse(file, Charsets.UTF_8);
+    }
+
+    /**
+     * Parses pages of an HOCR file.
+     * The file is memory-mapped, so its contents are never copied to the heap in their entirety.
+     * UTF-8 files up to 2 GB are lexed directly from the mapped bytes, as by <code>parseUtf8</code>.
+     * Other files are read through a sequence of mapped windows and decoded in small chunks,
+     * so files larger than 2 GB are supported as well.
+     * The pages are numbered consecutively, starting from 1.
+     *
+     * @param file    HOCR file
+     * @param charset encoding of the file
+     * @return list of pages
+     * @throws IOException if reading the file fails
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull File file, @Nonnull Charset charset) throws IOException {
+        return parse(file, charset, HocrParseOptions.all());
+    }
+
+    /**
+     * Parses only the selected pages of an HOCR file, only down to the selected level.
+     * The file is read the same way as by <code>parse(file, charset)</code>,
+     * but reading stops as soon as no more pages can be selected.
+     *
+     * @param file    HOCR file
+     * @param charset encoding of the file
+     * @param options which pages and levels to build
+     * @return list of selected pages
+     * @throws IOException if reading the file fails
+     * @see HocrParser#parse(CharSequence, int, HocrParseOptions)
+     */
+    @Nonnull
+    public static List<Page> parse(@Nonnull File file, @Nonnull Charset charset, @Nonnull HocrParseOptions options)
+            throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            if (charset.equals(Charsets.UTF_8) && channel.size() <= Integer.MAX_VALUE) {
+                ByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                return parse(new Utf8Sequence(bytes), 1, options);
+            }
+            MappedFileReader reader = new MappedFileReader(channel, charset, MappedFileReader.DEFAULT_WINDOW_SIZE);
+            PageIterator pages = new PageIterator(new HocrReader(reader), new HocrPageBuilder(1, options));
+            ArrayList<Page> result = new ArrayList<Page>();
+            for (Page p = pages.readPage(); p != null; p = pages.readPage()) {
+                result.add(p);
+            }
+            return result;
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Parses pages of a gzip-compressed, UTF-8 encoded HOCR file, like <code>.hocr.gz</code>.
+     * The pages are numbered consecutively, starting from 1.
+     *
+     * @param file gzip-compressed HOCR file
+     * @return list of pages
+     * @throws IOException if reading or decompressing the file fails
+     * @see HocrParser#parseGzip(InputStream, Charset)
+     */
+    @Nonnull
+    public static List<Page> parseGzip(@Nonnull File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            return parseGzip(in, Charsets.UTF_8);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Parses pages of a gzip-compressed HOCR document.
+     * The document is decompressed in small chunks and fed straight to an incremental parser,
+     * so neither the decompressed bytes nor the decoded text is ever kept in memory in its entirety.
+     * The pages are numbered consecutively, starting from 1.
+     * <br/>
+     * The stream is not closed.
+     *
+     * @param inputStream gzip-compressed HOCR document
+     * @param charset     encoding of the document
+     * @return list of pages
+     * @throws IOException if reading or decompressing the stream fails
+     */
+    @Nonnull
+    public static List<Page> parseGzip(@Nonnull InputStream inputStream, @Nonnull Charset charset) throws IOException {
+        return parseStream(new GZIPInputStream(inputStream, STREAM_BUFFER_SIZE), charset);
+    }
+
+    /**
+     * Parses pages of all entries of a zip file with UTF-8 encoded HOCR documents, one entry after another.
+     * The result is the same as of <code>parseZip(file, UTF_8, 1)</code>.
+     *
+     * @param file zip file
+     * @return list of pages
+     * @throws IOException if reading or decompressing the file fails
+     * @see HocrParser#parseZip(File, Charset, int)
+     */
+    @Nonnull
+    public static List<Page> parseZip(@Nonnull File file) throws IOException {
+        return parseZip(file, Charsets.UTF_8, 1);
+    }
+
+    /**
+     * Parses pages of all entries of a zip file with HOCR documents, parsing several entries at once.
+     * Each entry is decompressed in small chunks and fed straight to an incremental parser.
+     * Directories are skipped.
+     * <br/>
+     * The pages of all the entries are returned in the order of the entries in the file,
+     * and are numbered consecutively, starting from 1.
+     * The entries are parsed independently by a temporary pool of <code>parallelism</code> threads,
+     * and then their pages are renumbered.
+     * If parsing any entry fails, the exception for the earliest failed entry is rethrown.
+     *
+     * @param file        zip file
+     * @param charset     encoding of the documents
+     * @param parallelism maximum number of entries parsed at once
+     * @return list of pages
+     * @throws IOException if reading or decompressing the file fails
+     */
+    @Nonnull
+    public static List<Page> parseZip(@Nonnull File file, @Nonnull Charset charset, int parallelism)
+            throws IOException {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism");
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism,
+                new ThreadFactoryBuilder().setDaemon(true).setNameFormat("hocr4j-parser-%d").build());
+        try {
+            return parseZip(file, charset, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses pages of all entries of a zip file with HOCR documents,
+     * parsing each entry in a separate task run by the given executor.
+     * The result is the same as of <code>parseZip(file, charset, parallelism)</code>.
+     * <br/>
+     * The executor can be shared between many calls.
+     * If parsing any entry fails, the exception for the earliest failed entry is rethrown
+     * and the tasks for the entries not parsed yet are cancelled.
+     *
+     * @param file     zip file
+     * @param charset  encoding of the documents
+     * @param executor executor running the tasks
+     * @return list of pages
+     * @throws IOException if reading or decompressing the file fails
+     * @see HocrParser#parseZip(File, Charset, int)
+     */
+    @Nonnull
+    public static List<Page> parseZip(@Nonnull File file, @Nonnull final Charset charset, @Nonnull Executor executor)
+            throws IOException {
+        final ZipFile zipFile = new ZipFile(file);
+        ArrayList<FutureTask<List<Page>>> tasks = new ArrayList<FutureTask<List<Page>>>();
+        try {
+            Enumeration<? extends ZipEntry> entries = zipFile.entries();
+            while (entries.hasMoreElements()) {
+                final ZipEntry entry = entries.nextElement();
+                if (entry.isDirectory()) continue;
+                FutureTask<List<Page>> task = new FutureTask<List<Page>>(new Callable<List<Page>>() {
+                    @Override
+                    public List<Page> call() throws IOException {
+                        InputStream in = zipFile.getInputStream(entry);
+                        try {
+                            return parseStream(in, charset);
+                        } finally {
+                            in.close();
+                        }
+                    }
+                });
+                tasks.add(task);
+                executor.execute(task);
+            }
+            List<Page> pages = new ArrayList<Page>();
+            int pageNo = 1;
+            for (FutureTask<List<Page>> task : tasks) {
+                for (Page p : Uninterruptibles.getUninterruptibly(task)) {
+                    pages.add(p.getPageNo() == pageNo ? p : p.changePageNumber(pageNo));
+                    pageNo++;
+                }
+            }
+            return pages;
+        } catch (ExecutionException e) {
+            Throwables.propagateIfInstanceOf(e.getCause(), IOException.class);
+            throw Throwables.propagate(e.getCause());
+        } finally {
+            for (FutureTask<List<Page>> task : tasks) {
+                task.cancel(false);
+            }
+            zipFile.close();
+        }
+    }
+
+    /**
+     * Feeds a byte stream to a push parser in chunks and collects the pages.
+     */
+    private static List<Page> parseStream(InputStream in, Charset charset) throws IOException {
+        final ArrayList<Page> result = new ArrayList<Page>();
+        HocrPushParser parser = new HocrPushParser(charset, 1, HocrParseOptions.all(), new HocrPushParser.PageHandler() {
+            @Override
+            public void handlePage(@Nonnull Page page) {
+                result.add(page);
+            }
+        });
+        byte[] chunk = new byte[STREAM_BUFFER_SIZE];
+        ByteBuffer wrapped = ByteBuffer.wrap(chunk);
+        int n;
+        while ((n = in.read(chunk)) >= 0) {
+            wrapped.clear().limit(n);
+            parser.feed(wrapped);
+        }
+        parser.finish();
+        return result;
+    }
+
+    /**
+     * Lazily parses pages of an HOCR document read from the given character stream.
+     * The pages are numbered consecutively, starting from 1.
+     *
+     * @param reader source of the document
+     * @return iterator over pages
+     * @see HocrParser#pages(Reader, int)
+     */
+    @Nonnull
+    public static Iterator<Page> pages(@Nonnull Reader reader) {
+        return pages(reader, 1);
+    }
+
+    /**
+     * Lazily parses pages of an HOCR document read from the given character stream.
+     * Each page is read and built only when it is requested from the iterator,
+     * so the memory usage is bounded by the size of the largest page, not of the entire document.
+     * The pages are numbered consecutively, starting from <code>startingPageNumber</code>.
+     * <br/>
+     * The stream is not closed by the iterator.
+     * I/O errors are rethrown from the iterator methods as unchecked exceptions.
+     *
+     * @param reader             source of the document
+     * @param startingPageNumber page number for the first page
+     * @return iterator over pages
+     */
+    @Nonnull
+    public static Iterator<Page> pages(@Nonnull Reader reader, int startingPageNumber) {
+        return new PageIterator(new HocrReader(reader), startingPageNumber);
+    }
+
+    /**
+     * Lazily parses pages of an UTF-8 encoded HOCR document read from the given byte stream.
+     * The pages are numbered consecutively, starting from 1.
+     *
+     * @param inputStream source of the document
+     * @return iterator over pages
+     * @see HocrParser#pages(Reader, int)
+     */
+    @Nonnull
+    public static Iterator<Page> pages(@Nonnull InputStream inputStream) {
+        return new PageIterator(new HocrReader(inputStream), 1);
     }
 }
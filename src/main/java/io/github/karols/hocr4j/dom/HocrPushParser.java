@@ -0,0 +1,332 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Incremental parser for HOCR documents arriving in chunks.
+ * <br/>
+ * Chunks of characters or bytes are fed as they arrive, and each page is handed to the handler
+ * as soon as its closing tag has been fed, while the rest of the document is still being produced.
+ * Chunks can be split anywhere, even inside a tag or a multi-byte character;
+ * only the incomplete token at the end of the input fed so far is kept.
+ * <br/>
+ * The pages are the same as the ones built by <code>HocrParser.parse</code> from the entire document.
+ * Invalid HOCR causes <code>IllegalArgumentException</code> from the <code>feed</code> or <code>finish</code> call
+ * that completes the invalid element, and exceptions thrown by the handler are propagated the same way.
+ */
+@NotThreadSafe
+public final class HocrPushParser {
+
+    /**
+     * Receives pages from a push parser.
+     */
+    public interface PageHandler {
+        /**
+         * Called for each page as soon as it is complete, in document order.
+         *
+         * @param page completed page
+         */
+        void handlePage(@Nonnull Page page);
+    }
+
+    private char[] buffer = new char[8192];
+    private final HocrPageBuilder builder;
+    /**
+     * Bytes of an incomplete character at the end of the last byte chunk.
+     */
+    private ByteBuffer carry = null;
+    /**
+     * Position up to which no <code>&gt;</code> character has been found while looking for one.
+     */
+    private int closingScanned = 0;
+    private final CharsetDecoder decoder;
+    private boolean finished = false;
+    private final PageHandler handler;
+    private int knownClosingAt = -1;
+    private int limit = 0;
+    /**
+     * Position up to which the current token has been scanned without finding its end.
+     */
+    private int scanned = 0;
+    private CharBuffer source = CharBuffer.wrap(buffer);
+    /**
+     * Start of the current, incomplete token.
+     */
+    private int start = 0;
+
+    /**
+     * Creates a parser for an UTF-8 encoded document, numbering pages from 1.
+     *
+     * @param handler receiver of the pages
+     */
+    public HocrPushParser(@Nonnull PageHandler handler) {
+        this(Charsets.UTF_8, 1, HocrParseOptions.all(), handler);
+    }
+
+    /**
+     * Creates a parser.
+     *
+     * @param charset            encoding of the byte chunks
+     * @param startingPageNumber page number for the first page
+     * @param options            which pages and levels to build
+     * @param handler            receiver of the pages
+     */
+    public HocrPushParser(@Nonnull Charset charset, int startingPageNumber,
+                          @Nonnull HocrParseOptions options, @Nonnull PageHandler handler) {
+        this.builder = new HocrPageBuilder(startingPageNumber, options);
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.handler = handler;
+    }
+
+    private void checkNotFinished() {
+        if (finished) throw new IllegalStateException("finish() has already been called");
+    }
+
+    private void deliverPages() {
+        for (Page p = builder.pollPage(); p != null; p = builder.pollPage()) {
+            handler.handlePage(p);
+        }
+    }
+
+    /**
+     * Makes room for the given number of characters at the end of the buffer,
+     * discarding the already processed characters.
+     */
+    private void ensureCapacity(int count) {
+        if (limit + count <= buffer.length) return;
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, limit - start);
+            limit -= start;
+            scanned = Math.max(0, scanned - start);
+            closingScanned = Math.max(0, closingScanned - start);
+            knownClosingAt -= start;
+            start = 0;
+        }
+        if (limit + count > buffer.length) {
+            char[] newBuffer = new char[Math.max(buffer.length * 2, limit + count)];
+            System.arraycopy(buffer, 0, newBuffer, 0, limit);
+            buffer = newBuffer;
+            source = CharBuffer.wrap(buffer);
+        }
+    }
+
+    /**
+     * Feeds a chunk of characters.
+     *
+     * @param chunk  array containing the chunk
+     * @param offset index of the first character of the chunk
+     * @param length length of the chunk
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     * @throws IllegalStateException    if the parser has been finished
+     *                                  or an incomplete character from a byte chunk is pending
+     */
+    public void feed(@Nonnull char[] chunk, int offset, int length) {
+        checkNotFinished();
+        if (carry != null) throw new IllegalStateException("Incomplete character in the last byte chunk");
+        if (builder.isFinished()) return;
+        ensureCapacity(length);
+        System.arraycopy(chunk, offset, buffer, limit, length);
+        limit += length;
+        process(false);
+    }
+
+    /**
+     * Feeds a chunk of characters.
+     *
+     * @param chunk the chunk
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     * @throws IllegalStateException    if the parser has been finished
+     *                                  or an incomplete character from a byte chunk is pending
+     */
+    public void feed(@Nonnull char[] chunk) {
+        feed(chunk, 0, chunk.length);
+    }
+
+    /**
+     * Feeds a chunk of characters.
+     *
+     * @param chunk the chunk
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     * @throws IllegalStateException    if the parser has been finished
+     *                                  or an incomplete character from a byte chunk is pending
+     */
+    public void feed(@Nonnull CharSequence chunk) {
+        checkNotFinished();
+        if (carry != null) throw new IllegalStateException("Incomplete character in the last byte chunk");
+        if (builder.isFinished()) return;
+        int length = chunk.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            buffer[limit++] = chunk.charAt(i);
+        }
+        process(false);
+    }
+
+    /**
+     * Feeds a chunk of bytes, decoding them with the charset of this parser.
+     * All the remaining bytes of the buffer are consumed.
+     * A character split between chunks is decoded when the next chunk is fed.
+     *
+     * @param chunk the chunk
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     * @throws IllegalStateException    if the parser has been finished
+     */
+    public void feed(@Nonnull ByteBuffer chunk) {
+        checkNotFinished();
+        if (builder.isFinished()) {
+            chunk.position(chunk.limit());
+            return;
+        }
+        ByteBuffer in = chunk;
+        if (carry != null) {
+            in = ByteBuffer.allocate(carry.remaining() + chunk.remaining());
+            in.put(carry).put(chunk).flip();
+            carry = null;
+        }
+        decode(in, false);
+        if (in.hasRemaining()) {
+            carry = ByteBuffer.allocate(in.remaining());
+            carry.put(in).flip();
+        }
+        process(false);
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        while (true) {
+            ensureCapacity((int) (in.remaining() * decoder.maxCharsPerByte()) + 2);
+            CharBuffer out = CharBuffer.wrap(buffer, limit, buffer.length - limit);
+            CoderResult result = decoder.decode(in, out, endOfInput);
+            limit = out.position();
+            if (result.isUnderflow()) {
+                if (endOfInput) {
+                    decoder.flush(out);
+                    limit = out.position();
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Signals the end of the document, completing all pages still open.
+     *
+     * @throws IllegalArgumentException if the document structure is not valid HOCR
+     * @throws IllegalStateException    if the parser has already been finished
+     */
+    public void finish() {
+        checkNotFinished();
+        finished = true;
+        if (!builder.isFinished()) {
+            ByteBuffer in = carry != null ? carry : ByteBuffer.allocate(0);
+            carry = null;
+            decode(in, true);
+            process(true);
+        }
+        builder.finish();
+        deliverPages();
+    }
+
+    /**
+     * Checks if there is any <code>&gt;</code> character after the given position.
+     */
+    private boolean hasClosingAfter(int position) {
+        if (knownClosingAt > position) return true;
+        for (int i = Math.max(position + 1, closingScanned); i < limit; i++) {
+            if (buffer[i] == '>') {
+                knownClosingAt = i;
+                return true;
+            }
+        }
+        closingScanned = limit;
+        return false;
+    }
+
+    /**
+     * Finds the end of the current token, splitting tokens the same way as <code>HocrLexer</code>.
+     *
+     * @param endOfInput whether no more characters will be fed
+     * @return end of the token, or -1 if it cannot be known yet
+     */
+    private int nextTokenEnd(boolean endOfInput) {
+        if (start >= limit) return -1;
+        int i = Math.max(start + 1, scanned);
+        if (buffer[start] != '<') {
+            for (; i < limit; i++) {
+                if (buffer[i] == '<') return i;
+            }
+            scanned = limit;
+            return endOfInput ? limit : -1;
+        }
+        for (; i < limit; i++) {
+            char c = buffer[i];
+            if (c == '>') return i + 1;
+            if (c == '<') break;
+        }
+        scanned = i;
+        if (i < limit && hasClosingAfter(i)) {
+            // malformed markup: the tag is cut short before the next one
+            return i;
+        }
+        return endOfInput ? limit : -1;
+    }
+
+    /**
+     * Feeds all complete tokens to the builder.
+     */
+    private void process(boolean endOfInput) {
+        while (!builder.isFinished()) {
+            int end = nextTokenEnd(endOfInput);
+            if (end < 0) break;
+            switch (HocrTokens.kindOf(source, start, end - start)) {
+                case HocrTokens.START_TAG:
+                    builder.startTag(source, start, end);
+                    break;
+                case HocrTokens.EMPTY_TAG:
+                    builder.startTag(source, start, end);
+                    builder.endTag();
+                    break;
+                case HocrTokens.END_TAG:
+                    builder.endTag();
+                    break;
+                case HocrTokens.TEXT:
+                    builder.text(source, start, end);
+                    break;
+                default:
+                    break;
+            }
+            start = end;
+            scanned = end;
+            deliverPages();
+        }
+        if (builder.isFinished()) {
+            // the rest of the document is ignored
+            start = limit;
+        }
+    }
+}
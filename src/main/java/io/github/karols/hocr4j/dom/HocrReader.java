@@ -0,0 +1,460 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.utils.HtmlEntities;
+
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A streaming pull parser for HOCR documents.
+ * <br/>
+ * The document is read from a <code>Reader</code> token by token
+ * and only the current token and a small read-ahead buffer are kept in memory.
+ * Tokens are split using the same lenient rules as <code>HocrParser</code>,
+ * so malformed markup yields the same tags and texts as the DOM parser would see.
+ * <br/>
+ * Self-closing tags are reported as a start tag immediately followed by an end tag.
+ * Comments, doctype declarations and other tags starting with <code>&lt;!</code> are skipped.
+ */
+public final class HocrReader implements Closeable {
+
+    /**
+     * Kinds of events reported by the reader.
+     */
+    public enum Event {
+        /**
+         * An opening tag, or the first half of a self-closing tag.
+         */
+        START_TAG,
+        /**
+         * A closing tag, or the second half of a self-closing tag.
+         */
+        END_TAG,
+        /**
+         * A text run between two tags.
+         */
+        TEXT,
+        /**
+         * The end of the document.
+         */
+        END_DOCUMENT
+    }
+
+    private static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private final Reader reader;
+    private char[] buffer;
+    private CharBuffer bufferView = null;
+    private int position = 0;
+    private int limit = 0;
+    private long bufferOffset = 0;
+    private boolean eof = false;
+    private int knownClosingAt = -1;
+    private boolean noMoreClosings = false;
+
+    private Event event = null;
+    private int tokenStart = 0;
+    private int tokenLength = 0;
+    private boolean pendingEndTag = false;
+    private String rawToken = null;
+    private String tagName = null;
+    private HocrTag openingTag = null;
+    private final TagScanner scanner = new TagScanner();
+    private String text = null;
+
+    /**
+     * Creates a reader reading an HOCR document from the given character stream.
+     *
+     * @param reader source of the document
+     */
+    public HocrReader(@Nonnull Reader reader) {
+        this(reader, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates a reader reading an HOCR document from the given character stream.
+     * The buffer grows only if a single token does not fit in it.
+     *
+     * @param reader            source of the document
+     * @param initialBufferSize initial size of the read-ahead buffer, in characters
+     */
+    public HocrReader(@Nonnull Reader reader, int initialBufferSize) {
+        if (initialBufferSize < 1) throw new IllegalArgumentException("initialBufferSize");
+        this.reader = reader;
+        this.buffer = new char[initialBufferSize];
+    }
+
+    /**
+     * Creates a reader reading an UTF-8 encoded HOCR document from the given byte stream.
+     *
+     * @param inputStream source of the document
+     */
+    public HocrReader(@Nonnull InputStream inputStream) {
+        this(inputStream, Charsets.UTF_8);
+    }
+
+    /**
+     * Creates a reader reading an HOCR document from the given byte stream.
+     *
+     * @param inputStream source of the document
+     * @param charset     encoding of the document
+     */
+    public HocrReader(@Nonnull InputStream inputStream, @Nonnull Charset charset) {
+        this(new InputStreamReader(inputStream, charset));
+    }
+
+    /**
+     * Closes the underlying character stream.
+     *
+     * @throws IOException
+     */
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Returns all attributes of the current start tag.
+     *
+     * @return attributes of the tag
+     * @throws IllegalStateException if the current event is not a start tag
+     */
+    @Nonnull
+    public Map<String, String> getAttributes() {
+        return getOpeningTag().attributes;
+    }
+
+    /**
+     * Returns value of the given attribute of the current start tag,
+     * or <code>null</code> if the tag does not have such attribute.
+     *
+     * @param name attribute name
+     * @return attribute value, or <code>null</code> if not present
+     * @throws IllegalStateException if the current event is not a start tag
+     */
+    @Nullable
+    public String getAttribute(@Nonnull String name) {
+        if (event != Event.START_TAG) throw new IllegalStateException();
+        if (openingTag != null) {
+            return openingTag.getAttribute(name);
+        }
+        return scanner.reset(getTokenSource(), tokenStart, tokenStart + tokenLength).findAttribute(name);
+    }
+
+    /**
+     * Returns the last reported event, or <code>null</code> if <code>next</code> has not been called yet.
+     *
+     * @return current event
+     */
+    @Nullable
+    public Event getEvent() {
+        return event;
+    }
+
+    /**
+     * Returns the offset, in characters from the beginning of the document, of the current token.
+     *
+     * @return offset of the current token
+     */
+    public long getOffset() {
+        return bufferOffset + tokenStart;
+    }
+
+    /**
+     * Returns the current token exactly as it appears in the document.
+     *
+     * @return raw token
+     * @throws IllegalStateException if there is no current token
+     */
+    @Nonnull
+    public String getRawToken() {
+        if (event == null || event == Event.END_DOCUMENT) throw new IllegalStateException();
+        if (rawToken == null) {
+            rawToken = new String(buffer, tokenStart, tokenLength);
+        }
+        return rawToken;
+    }
+
+    /**
+     * Returns the text containing the current token, without copying it.
+     * The returned sequence is valid only until the next call to <code>next</code>.
+     */
+    @Nonnull
+    CharSequence getTokenSource() {
+        if (bufferView == null || bufferView.array() != buffer) {
+            bufferView = CharBuffer.wrap(buffer);
+        }
+        return bufferView;
+    }
+
+    /**
+     * Returns the index in <code>getTokenSource()</code> after the last character of the current token.
+     */
+    int getTokenEnd() {
+        return tokenStart + tokenLength;
+    }
+
+    /**
+     * Returns the index in <code>getTokenSource()</code> of the first character of the current token.
+     */
+    int getTokenStart() {
+        return tokenStart;
+    }
+
+    /**
+     * Returns the lowercase name of the current start or end tag.
+     *
+     * @return tag name
+     * @throws IllegalStateException if the current event is not a tag
+     */
+    @Nonnull
+    public String getTagName() {
+        if (event != Event.START_TAG && event != Event.END_TAG) throw new IllegalStateException();
+        if (tagName == null) {
+            int i = tokenStart + 1;
+            int end = tokenStart + tokenLength;
+            if (buffer[i] == '/') i++;
+            while (i < end && buffer[i] == ' ') i++;
+            int nameStart = i;
+            while (i < end && buffer[i] != ' ' && buffer[i] != '>' && buffer[i] != '/') i++;
+            tagName = scanner.getSymbols().getLowerCase(getTokenSource(), nameStart, i);
+        }
+        return tagName;
+    }
+
+    /**
+     * Returns the current text run, with all HTML entities decoded.
+     *
+     * @return decoded text
+     * @throws IllegalStateException if the current event is not text
+     */
+    @Nonnull
+    public String getText() {
+        if (event != Event.TEXT) throw new IllegalStateException();
+        if (text == null) {
+            text = HtmlEntities.unescape(getTokenSource(), tokenStart, tokenStart + tokenLength);
+        }
+        return text;
+    }
+
+    /**
+     * Checks if the current text run is blank.
+     *
+     * @return <code>true</code> if the text is blank, <code>false</code> otherwise
+     * @throws IllegalStateException if the current event is not text
+     */
+    public boolean isBlank() {
+        return StringUtils.isBlank(getText());
+    }
+
+    /**
+     * Reads the current element with all its contents into a DOM tree.
+     * If the current event is a start tag, the reader is left at the matching end tag,
+     * or at the end of the document if the element is not closed.
+     * Tags are matched the same way as by <code>HocrParser.createAst</code>:
+     * any end tag closes the innermost open element.
+     *
+     * @return the current element
+     * @throws IOException           if the underlying stream fails
+     * @throws IllegalStateException if the current event is neither a start tag nor text
+     */
+    @Nonnull
+    public HocrElement readElement() throws IOException {
+        if (event == Event.TEXT) {
+            return new HocrText(getRawToken());
+        }
+        if (event != Event.START_TAG) throw new IllegalStateException();
+        ArrayList<String> openingTags = new ArrayList<String>();
+        ArrayList<List<HocrElement>> contents = new ArrayList<List<HocrElement>>();
+        openingTags.add(getRawToken());
+        contents.add(new ArrayList<HocrElement>());
+        while (true) {
+            switch (next()) {
+                case START_TAG:
+                    openingTags.add(getRawToken());
+                    contents.add(new ArrayList<HocrElement>());
+                    break;
+                case TEXT:
+                    contents.get(contents.size() - 1).add(new HocrText(getRawToken()));
+                    break;
+                default:
+                    int top = openingTags.size() - 1;
+                    String openingTagString = openingTags.remove(top);
+                    HocrTag tag = new HocrTag(scanner, openingTagString, 0, openingTagString.length(), contents.remove(top));
+                    if (top == 0) {
+                        return tag;
+                    }
+                    contents.get(top - 1).add(tag);
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Advances to the next event.
+     * After <code>END_DOCUMENT</code> is reported, all subsequent calls return <code>END_DOCUMENT</code>.
+     *
+     * @return the next event
+     * @throws IOException if the underlying stream fails
+     */
+    @Nonnull
+    public Event next() throws IOException {
+        if (pendingEndTag) {
+            pendingEndTag = false;
+            event = Event.END_TAG;
+            openingTag = null;
+            return event;
+        }
+        while (true) {
+            position = tokenStart + tokenLength;
+            rawToken = null;
+            tagName = null;
+            openingTag = null;
+            text = null;
+            tokenStart = position;
+            tokenLength = 0;
+            if (position == limit && !fill()) {
+                tokenStart = position;
+                event = Event.END_DOCUMENT;
+                return event;
+            }
+            // fill() may have moved the data
+            tokenStart = position;
+            tokenLength = scanToken();
+            tokenStart = position;
+            char first = buffer[tokenStart];
+            char last = buffer[tokenStart + tokenLength - 1];
+            if (first == '<' && last == '>' && tokenLength >= 2) {
+                char second = buffer[tokenStart + 1];
+                if (second == '!') {
+                    continue;
+                }
+                if (second == '/') {
+                    event = Event.END_TAG;
+                } else {
+                    event = Event.START_TAG;
+                    pendingEndTag = buffer[tokenStart + tokenLength - 2] == '/';
+                }
+            } else {
+                event = Event.TEXT;
+            }
+            return event;
+        }
+    }
+
+    @Nonnull
+    private HocrTag getOpeningTag() {
+        if (event != Event.START_TAG) throw new IllegalStateException();
+        if (openingTag == null) {
+            String rawToken = getRawToken();
+            openingTag = new HocrTag(scanner, rawToken, 0, rawToken.length(), ImmutableList.<HocrElement>of());
+        }
+        return openingTag;
+    }
+
+    /**
+     * Makes sure that the character at the given offset from the current position is in the buffer.
+     */
+    private boolean ensure(int relativeOffset) throws IOException {
+        while (position + relativeOffset >= limit) {
+            if (!fill()) return false;
+        }
+        return true;
+    }
+
+    private boolean fill() throws IOException {
+        if (eof) return false;
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            limit -= position;
+            if (knownClosingAt >= 0) knownClosingAt -= position;
+            bufferOffset += position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            char[] newBuffer = new char[buffer.length * 2];
+            System.arraycopy(buffer, 0, newBuffer, 0, limit);
+            buffer = newBuffer;
+        }
+        int n;
+        do {
+            n = reader.read(buffer, limit, buffer.length - limit);
+        } while (n == 0);
+        if (n < 0) {
+            eof = true;
+            return false;
+        }
+        limit += n;
+        return true;
+    }
+
+    /**
+     * Returns the length of the token starting at the current position.
+     * Mirrors <code>HocrLexer.tokenEnd</code>,
+     * but never scans any character more than twice.
+     */
+    private int scanToken() throws IOException {
+        int r = 1;
+        if (buffer[position] != '<') {
+            while (ensure(r) && buffer[position + r] != '<') r++;
+            return r;
+        }
+        while (true) {
+            if (!ensure(r)) return r;
+            char c = buffer[position + r];
+            if (c == '>') return r + 1;
+            if (c == '<') {
+                if (hasClosingAfter(r)) return r;
+                while (fill()) {
+                    // read the rest of the document
+                }
+                return limit - position;
+            }
+            r++;
+        }
+    }
+
+    /**
+     * Checks if there is any <code>&gt;</code> character after the given offset from the current position.
+     */
+    private boolean hasClosingAfter(int relativeOffset) throws IOException {
+        if (knownClosingAt > position + relativeOffset) return true;
+        if (noMoreClosings) return false;
+        int r = relativeOffset + 1;
+        while (ensure(r)) {
+            if (buffer[position + r] == '>') {
+                knownClosingAt = position + r;
+                return true;
+            }
+            r++;
+        }
+        noMoreClosings = true;
+        return false;
+    }
+}
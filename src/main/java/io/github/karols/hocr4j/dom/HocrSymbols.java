@@ -0,0 +1,167 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import java.util.Locale;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.ThreadSafe;
+
+/**
+ * A table of canonical instances of tag names, attribute names and class names.
+ * <br/>
+ * Names are looked up directly in the source text, so a name seen before does not allocate a new string,
+ * and all tags built with the same table share a single instance of each name.
+ * The table starts with the names used by HOCR, taken from string literals,
+ * so for example the name of every parsed <code>span</code> tag is the same instance as the literal <code>"span"</code>.
+ * <br/>
+ * To keep documents with many distinct class names from growing the table without bound,
+ * it stops growing after <code>MAX_SIZE</code> names; later new names are returned as new strings.
+ * <br/>
+ * Lookups are synchronized, because tags decode their other attributes on demand, possibly in other threads,
+ * through the table of the parser that built them.
+ */
+@ThreadSafe
+final class HocrSymbols {
+
+    /**
+     * Maximum number of names in a table.
+     */
+    static final int MAX_SIZE = 4096;
+
+    private static final String[] WELL_KNOWN = {
+            "a", "b", "body", "br", "class", "dir", "div", "em", "head", "html", "i", "id", "lang",
+            "meta", "ocr_carea", "ocr_line", "ocr_page", "ocr_par", "ocr_word", "ocrx_word", "p",
+            "span", "strong", "title"
+    };
+    private static final String[] SEED;
+
+    static {
+        HocrSymbols seed = new HocrSymbols(new String[64]);
+        for (String name : WELL_KNOWN) {
+            seed.get(name);
+        }
+        SEED = seed.table;
+    }
+
+    private int size;
+    private String[] table;
+
+    /**
+     * Creates a table containing only the names used by HOCR.
+     */
+    HocrSymbols() {
+        this(SEED.clone());
+        size = WELL_KNOWN.length;
+    }
+
+    private HocrSymbols(String[] table) {
+        this.table = table;
+    }
+
+    /**
+     * Returns the canonical instance of the given string.
+     *
+     * @param name name
+     * @return equal string, shared by all calls with equal names
+     */
+    @Nonnull
+    synchronized String get(@Nonnull String name) {
+        int slot = indexFor(name.hashCode());
+        for (String s = table[slot]; s != null; s = table[slot]) {
+            if (s.equals(name)) return s;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        add(slot, name);
+        return name;
+    }
+
+    /**
+     * Returns the canonical instance of the given range of the source text.
+     *
+     * @param source text containing the name
+     * @param start  index of the first character of the name
+     * @param end    index after the last character of the name
+     * @return name, shared by all calls with equal names
+     */
+    @Nonnull
+    synchronized String get(@Nonnull CharSequence source, int start, int end) {
+        return lookup(source, start, end, false);
+    }
+
+    /**
+     * Returns the canonical instance of the given range of the source text converted to lower case.
+     *
+     * @param source text containing the name
+     * @param start  index of the first character of the name
+     * @param end    index after the last character of the name
+     * @return lowercase name, shared by all calls with names equal ignoring case
+     */
+    @Nonnull
+    synchronized String getLowerCase(@Nonnull CharSequence source, int start, int end) {
+        return lookup(source, start, end, true);
+    }
+
+    private void add(int slot, String name) {
+        if (size >= MAX_SIZE) return;
+        table[slot] = name;
+        size++;
+        if (size * 2 > table.length) {
+            String[] oldTable = table;
+            table = new String[oldTable.length * 2];
+            for (String s : oldTable) {
+                if (s == null) continue;
+                int i = indexFor(s.hashCode());
+                while (table[i] != null) i = (i + 1) & (table.length - 1);
+                table[i] = s;
+            }
+        }
+    }
+
+    private int indexFor(int hash) {
+        return (hash ^ (hash >>> 16)) & (table.length - 1);
+    }
+
+    private String lookup(CharSequence source, int start, int end, boolean lowerCase) {
+        int hash = 0;
+        for (int j = start; j < end; j++) {
+            char c = source.charAt(j);
+            if (c >= 0x80) {
+                // the source may contain bytes of an UTF-8 sequence instead of characters
+                String name = source.subSequence(start, end).toString();
+                return get(lowerCase ? name.toLowerCase(Locale.US) : name);
+            }
+            if (lowerCase && c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            hash = 31 * hash + c;
+        }
+        int slot = indexFor(hash);
+        for (String s = table[slot]; s != null; s = table[slot]) {
+            if (matches(s, source, start, end, lowerCase)) return s;
+            slot = (slot + 1) & (table.length - 1);
+        }
+        String name = source.subSequence(start, end).toString();
+        if (lowerCase) name = name.toLowerCase(Locale.US);
+        add(slot, name);
+        return name;
+    }
+
+    private static boolean matches(String s, CharSequence source, int start, int end, boolean lowerCase) {
+        if (s.length() != end - start) return false;
+        for (int j = 0; j < s.length(); j++) {
+            char c = source.charAt(start + j);
+            if (lowerCase && c >= 'A' && c <= 'Z') c += 'a' - 'A';
+            if (c != s.charAt(j)) return false;
+        }
+        return true;
+    }
+}
@@ -13,14 +13,15 @@
 
 package io.github.karols.hocr4j.dom;
 
+import com.google.common.collect.ForwardingMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.StringEscapeUtils;
 
+import java.util.ArrayDeque;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 
@@ -30,15 +31,17 @@ import javax.annotation.Nullable;
 public class HocrTag extends HocrElement {
 
     /**
-     * Elements of the tag body.
+     * All tag attributes.
+     * The map is unmodifiable and is decoded from the opening tag only when first accessed.
      */
-    public final ImmutableMap<String, String> attributes;
+    public final Map<String, String> attributes;
     /**
      * Value of the <code>class</code> attribute.
+     * Tags built by the same parser share a single instance of each class name.
      */
     public final String clazz;
     /**
-     * All tag attributes.
+     * Elements of the tag body.
      */
     public final ImmutableList<HocrElement> elements;
     /**
@@ -46,7 +49,9 @@ public class HocrTag extends HocrElement {
      */
     public final String id;
     /**
-     * Tag name.
+     * Tag name, in lower case.
+     * Tags built by the same parser share a single instance of each name,
+     * and the names used by HOCR, like <code>"span"</code>, are the instances of the string literals.
      */
     public final String name;
     /**
@@ -61,70 +66,70 @@ public class HocrTag extends HocrElement {
      * @param contents elements in the body of the tag
      */
     public HocrTag(String openingTagString, List<HocrElement> contents) {
-        final String x = openingTagString;
-        int i = 1;
-        while (x.charAt(i) == ' ') i++;
-        int nameStart = i;
-        while (x.charAt(i) != ' ' && x.charAt(i) != '>' && x.charAt(i) != '/') {
-            i++;
-        }
-        name = x.substring(nameStart, i).toLowerCase(Locale.US);
-        while (x.charAt(i) == ' ') i++;
-        HashMap<String, String> attributes = new HashMap<String, String>();
-        while (x.charAt(i) != '/' && x.charAt(i) != '>') {
-            int attrNameStart = i;
-            ing_bad:
-            while (true) {
-                switch (x.charAt(i)) {
-                    case '=':
-                    case '/':
-                    case ' ':
-                    case '>':
-                        break ing_bad;
-                    default:
-                        i++;
-                }
-            }
-            String attrName = x.substring(attrNameStart, i);
-            while (x.charAt(i) == ' ') i++;
-            String attrValue = attrName;
-            if (x.charAt(i) == '=') {
-                i++;
-                while (x.charAt(i) == ' ') i++;
-                int attrValueStart = i;
-                switch (x.charAt(i)) {
-                    case '\'':
-                        attrValueStart++;
-                        i++;
-                        while (x.charAt(i) != '\'') i++;
-                        attrValue = x.substring(attrValueStart, i);
-                        i++;
-                        break;
-                    case '\"':
-                        attrValueStart++;
-                        i++;
-                        while (x.charAt(i) != '\"') i++;
-                        attrValue = x.substring(attrValueStart, i);
-                        i++;
-                        break;
-                    default:
-                        while (x.charAt(i) != ' ' && x.charAt(i) != '/' && x.charAt(i) != '>') i++;
-                        attrValue = x.substring(attrValueStart, i);
-                        break;
-                }
+        this(openingTagString, 0, openingTagString.length(), contents);
+    }
+
+    /**
+     * Creates a new tag with the given elements
+     * and with name and attributes based on the opening tag
+     * found in the given range of the source text.
+     * Only the name and the <code>class</code>, <code>id</code> and <code>title</code> attributes are decoded eagerly;
+     * a copy of the opening tag is kept for decoding the other attributes on demand,
+     * so the tag does not retain the source text.
+     * The tag gets a new symbol table, so its names are not shared with other tags.
+     * @param source text containing the opening tag
+     * @param start index of the <code>&lt;</code> character of the opening tag
+     * @param end index after the <code>&gt;</code> character of the opening tag
+     * @param contents elements in the body of the tag
+     */
+    HocrTag(CharSequence source, int start, int end, List<HocrElement> contents) {
+        this(new TagScanner(), source, start, end, contents);
+    }
+
+    /**
+     * Creates a new tag like <code>HocrTag(CharSequence, int, int, List)</code>,
+     * using the given scanner for reading the opening tag.
+     * The names of the attributes decoded on demand are taken from the symbol table of the scanner,
+     * so they are shared with the other tags built with the same scanner.
+     */
+    HocrTag(TagScanner scanner, CharSequence source, int start, int end, List<HocrElement> contents) {
+        scanner.reset(source, start, end);
+        name = scanner.getTagName();
+        String id = null;
+        String clazz = null;
+        String title = null;
+        while (scanner.nextAttribute()) {
+            if (scanner.attributeNameIs("class")) {
+                clazz = scanner.getAttributeValueSymbol();
+            } else if (scanner.attributeNameIs("title")) {
+                title = scanner.getAttributeValue();
+            } else if (scanner.attributeNameIs("id")) {
+                id = scanner.getAttributeValue();
             }
-            while (x.charAt(i) == ' ') i++;
-            attributes.put(
-                    StringEscapeUtils.unescapeHtml4(attrName),
-                    StringEscapeUtils.unescapeHtml4(attrValue));
         }
-        this.id = attributes.get("id");
-        this.clazz = attributes.get("class");
-        this.title = attributes.get("title");
-        this.attributes = ImmutableMap.copyOf(attributes);
+        this.id = id;
+        this.clazz = clazz;
+        this.title = title;
+        this.attributes = new LazyAttributes(source.subSequence(start, end).toString(), scanner.getSymbols());
         this.elements = ImmutableList.copyOf(contents);
     }
 
+    /**
+     * Returns value of the given attribute,
+     * or <code>null</code> if the tag does not have such attribute.
+     * Does not decode the other attributes.
+     *
+     * @param attributeName attribute name
+     * @return attribute value, or <code>null</code> if not present
+     */
+    @Nullable
+    public String getAttribute(@Nonnull String attributeName) {
+        if (attributeName.equals("class")) return clazz;
+        if (attributeName.equals("title")) return title;
+        if (attributeName.equals("id")) return id;
+        return attributes.get(attributeName);
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -133,6 +138,8 @@ public class HocrTag extends HocrElement {
         if (obj == null || getClass() != obj.getClass()) {
             return false;
         }
+        // HocrElement does not override equals, so distinct tags are never equal
+        // and the elements are never compared recursively
         if (!super.equals(obj)) {
             return false;
         }
@@ -143,10 +150,16 @@ public class HocrTag extends HocrElement {
     @Nullable
     @Override
     public HocrTag findTag(@Nonnull String tagName) {
-        if (name.equals(tagName)) {
-            return this;
-        } else {
-            for (HocrElement e : elements) {
+        // explicit stack instead of recursion, so that deeply nested tags do not overflow the call stack
+        ArrayDeque<HocrElement> stack = new ArrayDeque<HocrElement>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            HocrElement e = stack.pop();
+            if (e instanceof HocrTag) {
+                HocrTag tag = (HocrTag) e;
+                if (tag.name.equals(tagName)) return tag;
+                pushReversed(stack, tag.elements);
+            } else {
                 HocrTag found = e.findTag(tagName);
                 if (found != null) return found;
             }
@@ -158,15 +171,46 @@ public class HocrTag extends HocrElement {
     @Override
     public String getRawText() {
         StringBuilder sb = new StringBuilder();
-        for (HocrElement e : elements) {
-            sb.append(e.getRawText());
+        ArrayDeque<HocrElement> stack = new ArrayDeque<HocrElement>();
+        pushReversed(stack, elements);
+        while (!stack.isEmpty()) {
+            HocrElement e = stack.pop();
+            if (e instanceof HocrTag) {
+                pushReversed(stack, ((HocrTag) e).elements);
+            } else {
+                sb.append(e.getRawText());
+            }
         }
         return sb.toString();
     }//tested
 
     @Override
     public int hashCode() {
-        return ObjectUtils.hashCodeMulti(elements, name, clazz, title, id, attributes);
+        // post-order traversal with an explicit stack; each frame accumulates the hash code of the element list
+        ArrayDeque<HashFrame> stack = new ArrayDeque<HashFrame>();
+        stack.push(new HashFrame(this));
+        while (true) {
+            HashFrame frame = stack.peek();
+            if (frame.index < frame.tag.elements.size()) {
+                HocrElement e = frame.tag.elements.get(frame.index++);
+                if (e instanceof HocrTag) {
+                    stack.push(new HashFrame((HocrTag) e));
+                } else {
+                    frame.elementsHash = 31 * frame.elementsHash + ObjectUtils.hashCode(e);
+                }
+            } else {
+                stack.pop();
+                HocrTag tag = frame.tag;
+                // the same as ObjectUtils.hashCodeMulti(elements, name, clazz, title, id, attributes)
+                int h = 31 + frame.elementsHash;
+                for (Object o : new Object[]{tag.name, tag.clazz, tag.title, tag.id, tag.attributes}) {
+                    h = 31 * h + ObjectUtils.hashCode(o);
+                }
+                if (stack.isEmpty()) return h;
+                HashFrame parent = stack.peek();
+                parent.elementsHash = 31 * parent.elementsHash + h;
+            }
+        }
     }
 
     @Override
@@ -177,31 +221,117 @@ public class HocrTag extends HocrElement {
     @Nonnull
     public String mkString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("<");
-        sb.append(name);
-        sb.append(" ");
-        sb.append(id);
-        sb.append(" ");
-        sb.append(clazz);
-        sb.append(">");
-        for (HocrElement e : elements) {
-            sb.append(e.mkString());
+        // the stack contains elements to write and strings to append as they are
+        ArrayDeque<Object> stack = new ArrayDeque<Object>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Object o = stack.pop();
+            if (o instanceof HocrTag) {
+                HocrTag tag = (HocrTag) o;
+                sb.append("<");
+                sb.append(tag.name);
+                sb.append(" ");
+                sb.append(tag.id);
+                sb.append(" ");
+                sb.append(tag.clazz);
+                sb.append(">");
+                stack.push("</" + tag.name + ">");
+                pushReversed(stack, tag.elements);
+            } else if (o instanceof HocrElement) {
+                sb.append(((HocrElement) o).mkString());
+            } else {
+                sb.append(o);
+            }
         }
-        sb.append("</");
-        sb.append(name);
-        sb.append(">");
         return sb.toString();
     }
 
     public String toString() {
-        String result = " <" + name + ">";
-        if (!attributes.isEmpty()) {
-            result += attributes;
+        StringBuilder sb = new StringBuilder();
+        // the stack contains elements to write and strings to append as they are
+        ArrayDeque<Object> stack = new ArrayDeque<Object>();
+        stack.push(this);
+        while (!stack.isEmpty()) {
+            Object o = stack.pop();
+            if (o instanceof HocrTag) {
+                HocrTag tag = (HocrTag) o;
+                sb.append(" <").append(tag.name).append(">");
+                if (!tag.attributes.isEmpty()) {
+                    sb.append(tag.attributes);
+                }
+                stack.push(" ");
+                if (!tag.elements.isEmpty()) {
+                    // the same format as ImmutableList.toString
+                    stack.push("]");
+                    for (int i = tag.elements.size() - 1; i >= 0; i--) {
+                        stack.push(tag.elements.get(i));
+                        if (i > 0) stack.push(", ");
+                    }
+                    stack.push("[");
+                }
+            } else {
+                sb.append(o);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static void pushReversed(ArrayDeque<? super HocrElement> stack, List<HocrElement> elements) {
+        for (int i = elements.size() - 1; i >= 0; i--) {
+            stack.push(elements.get(i));
+        }
+    }
+
+    /**
+     * A tag whose hash code is being calculated.
+     */
+    private static final class HashFrame {
+
+        int elementsHash = 1;
+        int index;
+        final HocrTag tag;
+
+        HashFrame(HocrTag tag) {
+            this.tag = tag;
         }
-        if (!elements.isEmpty()) {
-            result += elements;
+    }
+
+    /**
+     * Attributes decoded from the opening tag on first access,
+     * with names from the symbol table of the scanner that built the tag.
+     * The opening tag and the table are released once decoded.
+     */
+    private static final class LazyAttributes extends ForwardingMap<String, String> {
+
+        private volatile ImmutableMap<String, String> decoded = null;
+        private String openingTag;
+        private HocrSymbols symbols;
+
+        LazyAttributes(String openingTag, HocrSymbols symbols) {
+            this.openingTag = openingTag;
+            this.symbols = symbols;
         }
-        return result + " ";
 
+        @Override
+        protected Map<String, String> delegate() {
+            ImmutableMap<String, String> result = decoded;
+            if (result == null) {
+                synchronized (this) {
+                    result = decoded;
+                    if (result == null) {
+                        TagScanner scanner = new TagScanner(symbols).reset(openingTag, 0, openingTag.length());
+                        HashMap<String, String> attributes = new HashMap<String, String>();
+                        while (scanner.nextAttribute()) {
+                            attributes.put(scanner.getAttributeName(), scanner.getAttributeValue());
+                        }
+                        result = ImmutableMap.copyOf(attributes);
+                        decoded = result;
+                        openingTag = null;
+                        symbols = null;
+                    }
+                }
+            }
+            return result;
+        }
     }
 }
@@ -13,8 +13,9 @@
 
 package io.github.karols.hocr4j.dom;
 
+import io.github.karols.hocr4j.utils.HtmlEntities;
+
 import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.StringEscapeUtils;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
@@ -36,7 +37,46 @@ public class HocrText extends HocrElement {
      * @param t HTML-encoded text
      */
     public HocrText(String t) {
-        text = StringEscapeUtils.unescapeHtml4(t);
+        text = HtmlEntities.unescape(t);
+    }
+
+    /**
+     * Creates a text node with text found in the given range of the source text.
+     * @param source text containing the HTML-encoded text
+     * @param start index of the first character of the text
+     * @param end index after the last character of the text
+     */
+    HocrText(CharSequence source, int start, int end) {
+        text = decode(source, start, end);
+    }
+
+    /**
+     * Decodes HTML entities in the given range of the source text.
+     * If there are no entities, the range is copied only once.
+     * Ranges of UTF-8 byte sequences are decoded from UTF-8 first.
+     */
+    static String decode(CharSequence source, int start, int end) {
+        if (source instanceof Utf8Sequence) {
+            return HtmlEntities.unescape(((Utf8Sequence) source).decode(start, end));
+        }
+        return HtmlEntities.unescape(source, start, end);
+    }
+
+    /**
+     * Checks if the given range of the source text is blank after decoding,
+     * decoding it only if it contains entities.
+     */
+    static boolean isBlank(CharSequence source, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = source.charAt(i);
+            if (c == '&' || c >= 0x80 && source instanceof Utf8Sequence) {
+                return StringUtils.isBlank(decode(source, start, end));
+            }
+            if (!Character.isWhitespace(c)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -0,0 +1,162 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A list of tokens of an HOCR document.
+ * <br/>
+ * Tokens are not copied out of the document;
+ * each token is stored as a span of the source text:
+ * its offset, its length and its kind, packed in a single <code>int</code> array.
+ *
+ * @see HocrParser#tokenize(CharSequence)
+ */
+public final class HocrTokens {
+
+    /**
+     * Kind of a text token.
+     */
+    public static final int TEXT = 0;
+    /**
+     * Kind of an opening tag token, like <code>&lt;p&gt;</code>.
+     */
+    public static final int START_TAG = 1;
+    /**
+     * Kind of a self-closing tag token, like <code>&lt;br/&gt;</code>.
+     */
+    public static final int EMPTY_TAG = 2;
+    /**
+     * Kind of a closing tag token, like <code>&lt;/p&gt;</code>.
+     */
+    public static final int END_TAG = 3;
+    /**
+     * Kind of a comment, doctype or other token starting with <code>&lt;!</code>.
+     */
+    public static final int DECLARATION = 4;
+
+    private static final int FIELDS = 3;
+
+    private int[] data;
+    private int size = 0;
+    private CharSequence source;
+
+    HocrTokens(@Nonnull CharSequence source) {
+        this.source = source;
+        this.data = new int[FIELDS * Math.max(16, source.length() / 16)];
+    }
+
+    /**
+     * Removes all tokens and sets another source text, keeping the allocated storage.
+     */
+    void reset(@Nonnull CharSequence source) {
+        this.source = source;
+        this.size = 0;
+    }
+
+    void add(int offset, int length) {
+        if (FIELDS * size == data.length) {
+            int[] newData = new int[data.length * 2];
+            System.arraycopy(data, 0, newData, 0, data.length);
+            data = newData;
+        }
+        data[FIELDS * size] = offset;
+        data[FIELDS * size + 1] = length;
+        data[FIELDS * size + 2] = kindOf(source, offset, length);
+        size++;
+    }
+
+    static int kindOf(CharSequence source, int offset, int length) {
+        if (length < 2 || source.charAt(offset) != '<' || source.charAt(offset + length - 1) != '>') {
+            return TEXT;
+        }
+        char second = source.charAt(offset + 1);
+        if (second == '!') return DECLARATION;
+        if (second == '/') return END_TAG;
+        if (source.charAt(offset + length - 2) == '/') return EMPTY_TAG;
+        return START_TAG;
+    }
+
+    /**
+     * Returns the index after the last character of the token.
+     *
+     * @param index token index
+     * @return end offset of the token
+     */
+    public int getEnd(int index) {
+        return data[FIELDS * index] + data[FIELDS * index + 1];
+    }
+
+    /**
+     * Returns the kind of the token:
+     * <code>TEXT</code>, <code>START_TAG</code>, <code>EMPTY_TAG</code>, <code>END_TAG</code> or <code>DECLARATION</code>.
+     *
+     * @param index token index
+     * @return kind of the token
+     */
+    public int getKind(int index) {
+        return data[FIELDS * index + 2];
+    }
+
+    /**
+     * Returns the length of the token.
+     *
+     * @param index token index
+     * @return length of the token
+     */
+    public int getLength(int index) {
+        return data[FIELDS * index + 1];
+    }
+
+    /**
+     * Returns the offset of the first character of the token.
+     *
+     * @param index token index
+     * @return offset of the token
+     */
+    public int getOffset(int index) {
+        return data[FIELDS * index];
+    }
+
+    /**
+     * Returns the text the tokens were found in.
+     *
+     * @return source text
+     */
+    @Nonnull
+    public CharSequence getSource() {
+        return source;
+    }
+
+    /**
+     * Copies the token out of the source text.
+     *
+     * @param index token index
+     * @return the token, exactly as it appears in the source text
+     */
+    @Nonnull
+    public String getString(int index) {
+        return source.subSequence(getOffset(index), getEnd(index)).toString();
+    }
+
+    /**
+     * Returns the number of tokens.
+     *
+     * @return number of tokens
+     */
+    public int size() {
+        return size;
+    }
+}
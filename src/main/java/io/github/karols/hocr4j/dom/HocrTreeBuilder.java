@@ -0,0 +1,149 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Builds DOM trees from tokens, using an explicit stack instead of recursion,
+ * so arbitrarily deep or unclosed markup cannot cause <code>StackOverflowError</code>.
+ * <br/>
+ * The trees are the same as the ones built by <code>HocrParser.createAst</code>:
+ * any closing tag closes the innermost open tag,
+ * a closing tag without any open tag ends the document,
+ * tags still open at the end of the document are closed,
+ * and declarations are skipped.
+ * <br/>
+ * A builder can be reused for any number of documents;
+ * its stack, token storage and lexer are kept between documents instead of being allocated again.
+ * A builder must not be used by several threads at once.
+ */
+@NotThreadSafe
+public final class HocrTreeBuilder {
+
+    /**
+     * Elements collected so far at each depth; the lists are reused.
+     */
+    private final ArrayList<ArrayList<HocrElement>> levels = new ArrayList<ArrayList<HocrElement>>();
+    private final HocrLexer lexer = new HocrLexer("");
+    /**
+     * Token index of the opening tag at each depth, starting from 1.
+     */
+    private int[] openTags = new int[16];
+    private final TagScanner scanner = new TagScanner();
+    private final HocrTokens tokens = new HocrTokens("");
+
+    /**
+     * Tokenizes an HOCR document and builds its DOM tree.
+     *
+     * @param hocr HOCR document
+     * @return list of top-level elements
+     */
+    @Nonnull
+    public List<HocrElement> build(@Nonnull CharSequence hocr) {
+        tokens.reset(hocr);
+        lexer.reset(hocr);
+        int offset = 0;
+        while (hocr.length() > offset) {
+            int end = lexer.tokenEnd(offset);
+            tokens.add(offset, end - offset);
+            offset = end;
+        }
+        try {
+            return build(tokens);
+        } finally {
+            tokens.reset("");
+            lexer.reset("");
+        }
+    }
+
+    /**
+     * Builds a DOM tree from the given tokens.
+     *
+     * @param tokens tokens of an HOCR document
+     * @return list of top-level elements
+     */
+    @Nonnull
+    public List<HocrElement> build(@Nonnull HocrTokens tokens) {
+        CharSequence source = tokens.getSource();
+        int depth = 0;
+        level(0);
+        try {
+            tokenLoop:
+            for (int i = 0; i < tokens.size(); i++) {
+                int start = tokens.getOffset(i);
+                int end = tokens.getEnd(i);
+                switch (tokens.getKind(i)) {
+                    case HocrTokens.DECLARATION:
+                        break;
+                    case HocrTokens.END_TAG:
+                        if (depth == 0) break tokenLoop;
+                        close(tokens, depth--);
+                        break;
+                    case HocrTokens.EMPTY_TAG:
+                        levels.get(depth).add(new HocrTag(scanner, source, start, end, ImmutableList.<HocrElement>of()));
+                        break;
+                    case HocrTokens.START_TAG:
+                        depth++;
+                        if (depth == openTags.length) {
+                            int[] newOpenTags = new int[openTags.length * 2];
+                            System.arraycopy(openTags, 0, newOpenTags, 0, openTags.length);
+                            openTags = newOpenTags;
+                        }
+                        openTags[depth] = i;
+                        level(depth);
+                        break;
+                    default:
+                        levels.get(depth).add(new HocrText(source, start, end));
+                        break;
+                }
+            }
+            while (depth > 0) {
+                close(tokens, depth--);
+            }
+            return new ArrayList<HocrElement>(levels.get(0));
+        } finally {
+            for (ArrayList<HocrElement> level : levels) {
+                level.clear();
+            }
+        }
+    }
+
+    /**
+     * Creates the tag open at the given depth and adds it to the elements of the enclosing tag.
+     */
+    private void close(HocrTokens tokens, int depth) {
+        int tagIndex = openTags[depth];
+        HocrTag tag = new HocrTag(scanner, tokens.getSource(),
+                tokens.getOffset(tagIndex), tokens.getEnd(tagIndex), levels.get(depth));
+        levels.get(depth).clear();
+        levels.get(depth - 1).add(tag);
+    }
+
+    /**
+     * Prepares an empty list of elements for the given depth.
+     */
+    private void level(int depth) {
+        if (depth == levels.size()) {
+            levels.add(new ArrayList<HocrElement>());
+        } else {
+            levels.get(depth).clear();
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import javax.annotation.Nonnull;
+
+/**
+ * A character stream decoding a file through a sequence of memory-mapped windows.
+ * <br/>
+ * Only one window is mapped at a time, so files of any size can be read,
+ * and the bytes are decoded directly into the caller's buffer, without any intermediate copies.
+ * Malformed input is replaced, as in <code>InputStreamReader</code>.
+ */
+final class MappedFileReader extends Reader {
+
+    /**
+     * Default size of a mapped window, in bytes.
+     */
+    static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+
+    private final FileChannel channel;
+    private final CharsetDecoder decoder;
+    private boolean eof = false;
+    private char leftover;
+    private boolean hasLeftover = false;
+    private final long size;
+    private ByteBuffer window;
+    private final long windowSize;
+    private long windowStart = 0;
+
+    /**
+     * Creates a reader reading the entire file.
+     * The channel is closed when the reader is closed.
+     *
+     * @param channel    file channel to read
+     * @param charset    encoding of the file
+     * @param windowSize size of a mapped window, in bytes, at least 16
+     * @throws IOException if mapping fails
+     */
+    MappedFileReader(@Nonnull FileChannel channel, @Nonnull Charset charset, long windowSize) throws IOException {
+        if (windowSize < 16) throw new IllegalArgumentException("windowSize");
+        this.channel = channel;
+        this.decoder = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.size = channel.size();
+        this.windowSize = windowSize;
+        this.window = map(0);
+    }
+
+    private ByteBuffer map(long start) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(windowSize, size - start));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Decodes as many characters as fit, moving to the next window when needed.
+     *
+     * @return <code>false</code> if nothing more can be decoded
+     */
+    private boolean decode(CharBuffer out) throws IOException {
+        while (!eof) {
+            boolean lastWindow = windowStart + window.limit() == size;
+            CoderResult result = decoder.decode(window, out, lastWindow);
+            if (result.isOverflow()) {
+                return true;
+            }
+            if (lastWindow) {
+                decoder.flush(out);
+                eof = true;
+            } else {
+                // incomplete characters at the end of the window are decoded from the next one
+                windowStart += window.position();
+                window = map(windowStart);
+            }
+            if (out.position() > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int read(@Nonnull char[] cbuf, int off, int len) throws IOException {
+        if (len == 0) return 0;
+        int written = 0;
+        if (hasLeftover) {
+            cbuf[off] = leftover;
+            hasLeftover = false;
+            written = 1;
+            if (len == 1) return 1;
+        }
+        CharBuffer out = CharBuffer.wrap(cbuf, off + written, len - written).slice();
+        decode(out);
+        if (out.position() == 0 && written == 0 && !eof) {
+            // a surrogate pair does not fit in a single character
+            CharBuffer pair = CharBuffer.allocate(2);
+            decode(pair);
+            pair.flip();
+            if (pair.hasRemaining()) {
+                cbuf[off] = pair.get();
+                if (pair.hasRemaining()) {
+                    leftover = pair.get();
+                    hasLeftover = true;
+                }
+                return 1;
+            }
+        }
+        written += out.position();
+        return written == 0 ? -1 : written;
+    }
+}
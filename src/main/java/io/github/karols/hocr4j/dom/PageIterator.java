@@ -0,0 +1,95 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Throwables;
+import com.google.common.collect.UnmodifiableIterator;
+
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Iterator that reads pages from an HOCR document one at a time.
+ * Only the page being built is kept in memory, and no DOM tree is created.
+ * <br/>
+ * The pages are the non-blank elements of the first <code>&lt;body&gt;</code> tag,
+ * exactly as in <code>HocrParser.parse</code>.
+ */
+final class PageIterator extends UnmodifiableIterator<Page> {
+
+    private final HocrPageBuilder builder;
+    private Page nextPage = null;
+    private final HocrReader reader;
+
+    PageIterator(@Nonnull HocrReader reader, int startingPageNumber) {
+        this(reader, new HocrPageBuilder(startingPageNumber));
+    }
+
+    PageIterator(@Nonnull HocrReader reader, @Nonnull HocrPageBuilder builder) {
+        this.reader = reader;
+        this.builder = builder;
+    }
+
+    public boolean hasNext() {
+        if (nextPage == null) {
+            try {
+                nextPage = readPage();
+            } catch (IOException e) {
+                throw Throwables.propagate(e);
+            }
+        }
+        return nextPage != null;
+    }
+
+    public Page next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Page result = nextPage;
+        nextPage = null;
+        return result;
+    }
+
+    /**
+     * Reads the next page, bypassing the iterator methods.
+     *
+     * @return the next page, or <code>null</code> if there are no more pages
+     */
+    @Nullable
+    Page readPage() throws IOException {
+        Page page = builder.pollPage();
+        while (page == null && !builder.isFinished()) {
+            switch (reader.next()) {
+                case START_TAG:
+                    builder.startTag(reader.getTokenSource(), reader.getTokenStart(), reader.getTokenEnd());
+                    break;
+                case END_TAG:
+                    builder.endTag();
+                    break;
+                case TEXT:
+                    builder.text(reader.getTokenSource(), reader.getTokenStart(), reader.getTokenEnd());
+                    break;
+                default:
+                    builder.finish();
+                    break;
+            }
+            page = builder.pollPage();
+        }
+        return page;
+    }
+}
@@ -0,0 +1,235 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * A reusable cursor over the name and the attributes of an opening tag.
+ * Nothing is copied out of the source text unless explicitly requested,
+ * and tag names and attribute names are taken from the symbol table of the scanner.
+ * <br/>
+ * Malformed tags, like ones with unterminated quotes,
+ * cause <code>StringIndexOutOfBoundsException</code>.
+ */
+final class TagScanner {
+
+    private int end;
+    private int i;
+    private final HocrSymbols symbols;
+    private CharSequence x;
+
+    int attributeNameEnd;
+    int attributeNameStart;
+    int attributeValueEnd;
+    int attributeValueStart;
+    int tagNameEnd;
+    int tagNameStart;
+
+    /**
+     * Creates a scanner with a new symbol table.
+     */
+    TagScanner() {
+        this(new HocrSymbols());
+    }
+
+    /**
+     * Creates a scanner sharing the given symbol table.
+     */
+    TagScanner(@Nonnull HocrSymbols symbols) {
+        this.symbols = symbols;
+    }
+
+    private char charAt(int index) {
+        if (index >= end) throw new StringIndexOutOfBoundsException(index);
+        return x.charAt(index);
+    }
+
+    /**
+     * Checks if the given range of the source text, after decoding, is equal to the given string.
+     */
+    private boolean decodedRangeEquals(int start, int end, String expected) {
+        int length = end - start;
+        for (int j = 0; j < length; j++) {
+            if (x.charAt(start + j) == '&') {
+                return HocrText.decode(x, start, end).equals(expected);
+            }
+        }
+        if (length != expected.length()) return false;
+        for (int j = 0; j < length; j++) {
+            if (x.charAt(start + j) != expected.charAt(j)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the value of the given attribute, starting from the current attribute.
+     * Moves the cursor to the end of the tag.
+     * If an attribute occurs several times, its last value is returned.
+     *
+     * @param name attribute name
+     * @return decoded value of the attribute, or <code>null</code> if not present
+     */
+    @Nullable
+    String findAttribute(@Nonnull String name) {
+        String result = null;
+        while (nextAttribute()) {
+            if (attributeNameIs(name)) {
+                result = getAttributeValue();
+            }
+        }
+        return result;
+    }
+
+    boolean attributeNameIs(@Nonnull String name) {
+        return decodedRangeEquals(attributeNameStart, attributeNameEnd, name);
+    }
+
+    boolean attributeValueIs(@Nonnull String value) {
+        return decodedRangeEquals(attributeValueStart, attributeValueEnd, value);
+    }
+
+    @Nonnull
+    String getAttributeName() {
+        return getSymbol(attributeNameStart, attributeNameEnd);
+    }
+
+    @Nonnull
+    String getAttributeValue() {
+        return HocrText.decode(x, attributeValueStart, attributeValueEnd);
+    }
+
+    /**
+     * Returns the decoded attribute value from the symbol table,
+     * for values like class names that repeat throughout the document.
+     */
+    @Nonnull
+    String getAttributeValueSymbol() {
+        return getSymbol(attributeValueStart, attributeValueEnd);
+    }
+
+    private String getSymbol(int start, int end) {
+        for (int j = start; j < end; j++) {
+            if (x.charAt(j) == '&') {
+                return symbols.get(HocrText.decode(x, start, end));
+            }
+        }
+        return symbols.get(x, start, end);
+    }
+
+    @Nonnull
+    HocrSymbols getSymbols() {
+        return symbols;
+    }
+
+    @Nonnull
+    String getTagName() {
+        return symbols.getLowerCase(x, tagNameStart, tagNameEnd);
+    }
+
+    /**
+     * Advances to the next attribute.
+     *
+     * @return <code>false</code> if there are no more attributes
+     */
+    boolean nextAttribute() {
+        if (charAt(i) == '/' || x.charAt(i) == '>') {
+            return false;
+        }
+        attributeNameStart = i;
+        ing_bad:
+        while (true) {
+            switch (charAt(i)) {
+                case '=':
+                case '/':
+                case ' ':
+                case '>':
+                    break ing_bad;
+                default:
+                    i++;
+            }
+        }
+        attributeNameEnd = i;
+        while (charAt(i) == ' ') i++;
+        attributeValueStart = attributeNameStart;
+        attributeValueEnd = attributeNameEnd;
+        if (x.charAt(i) == '=') {
+            i++;
+            while (charAt(i) == ' ') i++;
+            attributeValueStart = i;
+            switch (x.charAt(i)) {
+                case '\'':
+                    attributeValueStart++;
+                    i++;
+                    while (charAt(i) != '\'') i++;
+                    attributeValueEnd = i;
+                    i++;
+                    break;
+                case '\"':
+                    attributeValueStart++;
+                    i++;
+                    while (charAt(i) != '\"') i++;
+                    attributeValueEnd = i;
+                    i++;
+                    break;
+                default:
+                    while (charAt(i) != ' ' && x.charAt(i) != '/' && x.charAt(i) != '>') i++;
+                    attributeValueEnd = i;
+                    break;
+            }
+        }
+        while (charAt(i) == ' ') i++;
+        return true;
+    }
+
+    /**
+     * Starts scanning an opening tag, reading its name.
+     *
+     * @param source text containing the opening tag
+     * @param start  index of the <code>&lt;</code> character of the opening tag
+     * @param end    index after the <code>&gt;</code> character of the opening tag
+     * @return this scanner, positioned before the first attribute
+     */
+    @Nonnull
+    TagScanner reset(@Nonnull CharSequence source, int start, int end) {
+        this.x = source;
+        this.end = end;
+        i = start + 1;
+        while (charAt(i) == ' ') i++;
+        tagNameStart = i;
+        while (charAt(i) != ' ' && x.charAt(i) != '>' && x.charAt(i) != '/') {
+            i++;
+        }
+        tagNameEnd = i;
+        while (charAt(i) == ' ') i++;
+        return this;
+    }
+
+    /**
+     * Checks if the tag name is equal to the given lowercase ASCII name, ignoring case.
+     */
+    boolean tagNameIs(@Nonnull String lowercaseName) {
+        int length = tagNameEnd - tagNameStart;
+        if (length != lowercaseName.length()) return false;
+        for (int j = 0; j < length; j++) {
+            char c = x.charAt(tagNameStart + j);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            if (c != lowercaseName.charAt(j)) return false;
+        }
+        return true;
+    }
+}
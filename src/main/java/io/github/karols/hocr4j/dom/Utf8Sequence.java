@@ -0,0 +1,156 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.base.Charsets;
+
+import java.nio.ByteBuffer;
+import javax.annotation.Nonnull;
+import javax.annotation.concurrent.Immutable;
+
+/**
+ * UTF-8 encoded text viewed as a sequence of bytes, without decoding it.
+ * <br/>
+ * Each byte is presented as a single character from U+0000 to U+00FF,
+ * and indices are byte offsets.
+ * In UTF-8, all bytes of non-ASCII characters are above 0x7F,
+ * so the markup can be lexed and compared against ASCII names and digits as is,
+ * and only the ranges that are actually needed as strings are decoded.
+ * <br/>
+ * The contents of the buffer are not copied, so they must not be modified while the sequence is used.
+ */
+@Immutable
+final class Utf8Sequence implements CharSequence {
+
+    /**
+     * Backing array of the buffer, or <code>null</code> for direct buffers.
+     */
+    private final byte[] array;
+    private final ByteBuffer bytes;
+    private final int offset;
+    private final int length;
+
+    /**
+     * Creates a view of the remaining bytes of the buffer.
+     * The position and the limit of the buffer are not changed.
+     *
+     * @param bytes UTF-8 encoded text
+     */
+    Utf8Sequence(@Nonnull ByteBuffer bytes) {
+        this.bytes = bytes.duplicate();
+        if (bytes.hasArray()) {
+            this.array = bytes.array();
+            this.offset = bytes.arrayOffset() + bytes.position();
+        } else {
+            this.array = null;
+            this.offset = bytes.position();
+        }
+        this.length = bytes.remaining();
+    }
+
+    private Utf8Sequence(byte[] array, ByteBuffer bytes, int offset, int length) {
+        this.array = array;
+        this.bytes = bytes;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    private byte byteAt(int index) {
+        return array != null ? array[offset + index] : bytes.get(offset + index);
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) throw new StringIndexOutOfBoundsException(index);
+        return (char) (byteAt(index) & 0xff);
+    }
+
+    /**
+     * Decodes the given range of bytes.
+     * Ranges of ASCII characters are converted without a decoder,
+     * and malformed input is replaced, as in <code>new String(byte[], Charset)</code>.
+     *
+     * @param start index of the first byte
+     * @param end   index after the last byte
+     * @return decoded text
+     */
+    @Nonnull
+    String decode(int start, int end) {
+        if (start < 0 || end > length || start > end) throw new StringIndexOutOfBoundsException(start);
+        int size = end - start;
+        char[] chars = new char[size];
+        for (int i = 0; i < size; i++) {
+            byte b = byteAt(start + i);
+            if (b < 0) {
+                return decodeNonAscii(start, end);
+            }
+            chars[i] = (char) b;
+        }
+        return new String(chars);
+    }
+
+    private String decodeNonAscii(int start, int end) {
+        if (array != null) {
+            return new String(array, offset + start, end - start, Charsets.UTF_8);
+        }
+        byte[] copy = new byte[end - start];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = bytes.get(offset + start + i);
+        }
+        return new String(copy, Charsets.UTF_8);
+    }
+
+    /**
+     * Finds the first occurrence of an ASCII character.
+     *
+     * @param c    ASCII character
+     * @param from index to start searching from
+     * @return index of the character, or -1 if not found
+     */
+    int indexOf(char c, int from) {
+        byte b = (byte) c;
+        if (array != null) {
+            for (int i = offset + from; i < offset + length; i++) {
+                if (array[i] == b) return i - offset;
+            }
+        } else {
+            for (int i = offset + from; i < offset + length; i++) {
+                if (bytes.get(i) == b) return i - offset;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public Utf8Sequence subSequence(int start, int end) {
+        if (start < 0 || end > length || start > end) throw new StringIndexOutOfBoundsException(start);
+        return new Utf8Sequence(array, bytes, offset + start, end - start);
+    }
+
+    /**
+     * Decodes the entire sequence.
+     *
+     * @return decoded text
+     */
+    @Nonnull
+    @Override
+    public String toString() {
+        return decode(0, length);
+    }
+}
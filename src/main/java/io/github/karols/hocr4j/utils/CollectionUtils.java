@@ -46,6 +46,31 @@ public final class CollectionUtils {
         return result;
     }
 
+    /**
+     * Returns a list with those elements of the original list
+     * that satisfy the predicate.
+     * If all elements satisfy it, returns the original list instead of a copy.
+     * @param xs original list
+     * @param f the predicate to filter on
+     * @param <T> element type
+     * @return filtered list, or <code>xs</code> if nothing was filtered out
+     */
+    @Nonnull
+    public static <T> List<T> listFilterOrSame(@Nonnull List<T> xs, @Nonnull Predicate<T> f) {
+        ArrayList<T> result = null;
+        for (int i = 0; i < xs.size(); i++) {
+            T x = xs.get(i);
+            if (f.apply(x)) {
+                if (result != null) {
+                    result.add(x);
+                }
+            } else if (result == null) {
+                result = new ArrayList<T>(xs.subList(0, i));
+            }
+        }
+        return result == null ? xs : result;
+    }
+
     /**
      * Creates a new list with elements being results of mapping
      * the function over the original list.
@@ -64,6 +89,32 @@ public final class CollectionUtils {
         return result;
     }
 
+    /**
+     * Returns a list with elements being results of mapping
+     * the function over the original list.
+     * If the function returns every element itself, returns the original list instead of a copy.
+     * @param xs original list
+     * @param f function
+     * @param <T> list element type
+     * @return list of results of mapping the function, or <code>xs</code> if no element was changed
+     */
+    @Nonnull
+    public static <T> List<T> listMapOrSame(@Nonnull List<T> xs, @Nonnull Function<T, T> f) {
+        ArrayList<T> result = null;
+        for (int i = 0; i < xs.size(); i++) {
+            T x = xs.get(i);
+            T y = f.apply(x);
+            if (result != null) {
+                result.add(y);
+            } else if (y != x) {
+                result = new ArrayList<T>(xs.size());
+                result.addAll(xs.subList(0, i));
+                result.add(y);
+            }
+        }
+        return result == null ? xs : result;
+    }
+
     /**
      * Creates a new immutable list with an element added to the end.
      * @param list original list
@@ -0,0 +1,194 @@
+/* Copyright (c) 2014 Karol Stasiak
+*
+* This library is free software; you can redistribute it and/or
+* modify it under the terms of the GNU Lesser General Public
+* License as published by the Free Software Foundation; either
+* version 2.1 of the License, or (at your option) any later version.
+*
+* This library is distributed in the hope that it will be useful,
+* but WITHOUT ANY WARRANTY; without even the implied warranty of
+* MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+* Lesser General Public License for more details.
+*/
+
+package io.github.karols.hocr4j.utils;
+
+import org.apache.commons.lang3.text.translate.EntityArrays;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import javax.annotation.Nonnull;
+
+/**
+ * Decoder of HTML 4 character entities.
+ * <br/>
+ * Decodes the same entities as <code>StringEscapeUtils.unescapeHtml4</code>:
+ * named entities, decimal and hexadecimal numeric entities, all terminated with a semicolon.
+ * Text without any <code>&amp;</code> character is returned without copying,
+ * and named entities are looked up in a sorted table without creating any strings.
+ * <br/>
+ * The only difference is that numeric entities above <code>U+10FFFF</code> are left undecoded
+ * instead of causing <code>IllegalArgumentException</code>.
+ */
+public final class HtmlEntities {
+
+    private static final int LONGEST_NAME;
+    private static final String[] NAMES;
+    private static final char[] VALUES;
+
+    static {
+        String[][][] tables = {
+                EntityArrays.BASIC_UNESCAPE(),
+                EntityArrays.ISO8859_1_UNESCAPE(),
+                EntityArrays.HTML40_EXTENDED_UNESCAPE()
+        };
+        int count = 0;
+        for (String[][] table : tables) {
+            count += table.length;
+        }
+        String[][] entries = new String[count][];
+        int i = 0;
+        for (String[][] table : tables) {
+            for (String[] entry : table) {
+                // entry[0] is like "&amp;"
+                entries[i++] = new String[]{entry[0].substring(1, entry[0].length() - 1), entry[1]};
+            }
+        }
+        Arrays.sort(entries, new Comparator<String[]>() {
+            @Override
+            public int compare(String[] o1, String[] o2) {
+                return o1[0].compareTo(o2[0]);
+            }
+        });
+        NAMES = new String[count];
+        VALUES = new char[count];
+        int longest = 0;
+        for (i = 0; i < count; i++) {
+            NAMES[i] = entries[i][0];
+            VALUES[i] = entries[i][1].charAt(0);
+            longest = Math.max(longest, NAMES[i].length());
+        }
+        LONGEST_NAME = longest;
+    }
+
+    private HtmlEntities() {
+    }
+
+    /**
+     * Decodes all entities in the given text.
+     *
+     * @param text HTML-encoded text
+     * @return decoded text, or <code>text</code> itself if it does not contain any entities
+     */
+    @Nonnull
+    public static String unescape(@Nonnull String text) {
+        if (text.indexOf('&') < 0) return text;
+        return unescape(text, 0, text.length());
+    }
+
+    /**
+     * Decodes all entities in the given range of the text.
+     * The range is copied only once.
+     *
+     * @param text  text containing HTML-encoded text
+     * @param start index of the first character to decode
+     * @param end   index after the last character to decode
+     * @return decoded text
+     */
+    @Nonnull
+    public static String unescape(@Nonnull CharSequence text, int start, int end) {
+        int i = start;
+        while (i < end && text.charAt(i) != '&') i++;
+        if (i == end) {
+            return text.subSequence(start, end).toString();
+        }
+        StringBuilder sb = new StringBuilder(end - start);
+        sb.append(text, start, i);
+        while (i < end) {
+            char c = text.charAt(i);
+            if (c == '&') {
+                int length = appendEntity(text, i, end, sb);
+                if (length > 0) {
+                    i += length;
+                    continue;
+                }
+            }
+            sb.append(c);
+            i++;
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Decodes the entity starting at the given <code>&amp;</code> character.
+     *
+     * @return length of the entity, or 0 if there is no valid entity
+     */
+    private static int appendEntity(CharSequence text, int ampersand, int end, StringBuilder sb) {
+        if (ampersand + 1 < end && text.charAt(ampersand + 1) == '#') {
+            return appendNumericEntity(text, ampersand, end, sb);
+        }
+        int nameStart = ampersand + 1;
+        int limit = Math.min(end, nameStart + LONGEST_NAME + 1);
+        for (int semicolon = nameStart; semicolon < limit; semicolon++) {
+            if (text.charAt(semicolon) == ';') {
+                int index = findName(text, nameStart, semicolon);
+                if (index < 0) return 0;
+                sb.append(VALUES[index]);
+                return semicolon + 1 - ampersand;
+            }
+        }
+        return 0;
+    }
+
+    private static int appendNumericEntity(CharSequence text, int ampersand, int end, StringBuilder sb) {
+        int i = ampersand + 2;
+        if (i >= end) return 0;
+        int radix = 10;
+        if (text.charAt(i) == 'x' || text.charAt(i) == 'X') {
+            radix = 16;
+            i++;
+        }
+        int digitsStart = i;
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = Character.digit(text.charAt(i), radix);
+            if (digit < 0 || text.charAt(i) > 'f') break;
+            value = value * radix + digit;
+            if (value > Character.MAX_CODE_POINT) return 0;
+        }
+        if (i == digitsStart || i == end || text.charAt(i) != ';') return 0;
+        sb.appendCodePoint((int) value);
+        return i + 1 - ampersand;
+    }
+
+    /**
+     * Binary search of the name in the given range among known entity names.
+     */
+    private static int findName(CharSequence text, int start, int end) {
+        int low = 0;
+        int high = NAMES.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(NAMES[mid], text, start, end);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private static int compare(String name, CharSequence text, int start, int end) {
+        int length = Math.min(name.length(), end - start);
+        for (int i = 0; i < length; i++) {
+            char c1 = name.charAt(i);
+            char c2 = text.charAt(start + i);
+            if (c1 != c2) return c1 - c2;
+        }
+        return name.length() - (end - start);
+    }
+}
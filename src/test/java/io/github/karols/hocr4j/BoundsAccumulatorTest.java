@@ -0,0 +1,46 @@
+package io.github.karols.hocr4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BoundsAccumulatorTest {
+
+    @Test
+    public void testAgainstUnion() throws Exception {
+        Random random = new Random(3);
+        BoundsAccumulator acc = new BoundsAccumulator();
+        for (int iteration = 0; iteration < 500; iteration++) {
+            acc.reset();
+            Bounds expected = null;
+            List<Bounds> all = new ArrayList<Bounds>();
+            for (int i = random.nextInt(6); i > 0; i--) {
+                Bounds b = random.nextInt(5) == 0 ? null : new Bounds(
+                        random.nextInt(20) - 10, random.nextInt(20) - 10, random.nextInt(20), random.nextInt(20));
+                if (b != null) all.add(b);
+                expected = Bounds.nullSafeUnion(expected, b);
+                acc.add(b);
+                assertEquals(expected, acc.getBounds());
+                assertEquals(expected == null, acc.isEmpty());
+            }
+            assertEquals(expected, Bounds.ofAll(all.toArray(new Bounds[all.size()])));
+        }
+    }
+
+    @Test
+    public void testSharesAddedBounds() throws Exception {
+        Bounds big = new Bounds(0, 0, 10, 10);
+        Bounds small = new Bounds(2, 2, 5, 5);
+        assertSame(big, new BoundsAccumulator().add(small).add(big).add(null).add(small).getBounds());
+        assertSame(big, Bounds.ofAll(big));
+        Bounds union = new BoundsAccumulator().add(small).add(8, 8, 12, 12).getBounds();
+        assertEquals(new Bounds(2, 2, 12, 12), union);
+        assertNull(new BoundsAccumulator().add(big).reset().getBounds());
+        assertNull(Bounds.ofAll());
+        assertNull(Bounds.ofAll(new ArrayList<Word>()));
+    }
+}
@@ -0,0 +1,124 @@
+package io.github.karols.hocr4j;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BoundsArrayTest {
+
+    private static Bounds randomBounds(Random random) {
+        if (random.nextInt(10) == 0) return null;
+        int left = random.nextInt(20);
+        int top = random.nextInt(20);
+        // sometimes empty or with zero area
+        return new Bounds(left, top, left + random.nextInt(12) - 2, top + random.nextInt(12) - 2);
+    }
+
+    /**
+     * The original implementation of <code>Page.growBoundsUntilTheyStopCuttingWords</code>.
+     */
+    private static Bounds growSequentially(List<Word> words, Bounds b) {
+        boolean modified = true;
+        Bounds rect = b;
+        while (modified) {
+            modified = false;
+            for (Word w : words) {
+                if (rect.cuts(w.getBounds())) {
+                    rect = rect.union(w.getBounds());
+                    modified = true;
+                }
+            }
+        }
+        return rect;
+    }
+
+    @Test
+    public void testAgainstBounds() throws Exception {
+        Random random = new Random(7);
+        for (int iteration = 0; iteration < 500; iteration++) {
+            Bounds[] bounds = new Bounds[random.nextInt(8)];
+            List<Bounded> bounded = new ArrayList<Bounded>();
+            for (int i = 0; i < bounds.length; i++) {
+                bounds[i] = randomBounds(random);
+                if (bounds[i] != null) bounded.add(bounds[i]);
+            }
+            BoundsArray array = BoundsArray.of(bounds);
+            assertEquals(bounds.length, array.size());
+            assertEquals(Bounds.ofAll(bounded), array.union());
+            Bounds rect = randomBounds(random);
+            if (rect == null) rect = new Bounds(5, 5, 15, 15);
+            BitSet cut = array.cutBy(rect);
+            BitSet in = array.in(rect);
+            BitSet intersecting = array.intersecting(rect);
+            BoundsArray translated = array.translate(3, -4);
+            BoundsArray scaled = array.scale(1.7);
+            for (int i = 0; i < bounds.length; i++) {
+                assertEquals(bounds[i], array.get(i));
+                assertEquals(bounds[i] == null, array.isNull(i));
+                assertEquals(rect.cuts(bounds[i]), cut.get(i));
+                assertEquals(rect.cuts(bounds[i]), array.isCutBy(i, rect));
+                assertEquals(bounds[i] != null && bounds[i].in(rect), in.get(i));
+                assertEquals(bounds[i] != null && bounds[i].intersects(rect), intersecting.get(i));
+                assertEquals(bounds[i] == null ? null : bounds[i].translate(3, -4), translated.get(i));
+                assertEquals(bounds[i] == null ? null : bounds[i].scale(1.7), scaled.get(i));
+            }
+            assertTrue(array.intersecting(null).isEmpty());
+            assertTrue(array.in(null).isEmpty());
+            assertEquals(array, BoundsArray.of(bounds));
+        }
+    }
+
+    @Test
+    public void testGrowBoundsUntilTheyStopCuttingWords() throws Exception {
+        Random random = new Random(11);
+        for (int iteration = 0; iteration < 1000; iteration++) {
+            // coordinates on a coarse grid, so that edges often touch,
+            // and sizes sometimes zero, so that touching edges may count as intersections
+            List<Word> words = new ArrayList<Word>();
+            for (int i = random.nextInt(30) + 1; i > 0; i--) {
+                int left = 5 * random.nextInt(20);
+                int top = 5 * random.nextInt(20);
+                words.add(new Word("w", new Bounds(left, top, left + 5 * random.nextInt(4), top + 5 * random.nextInt(4))));
+            }
+            Page page = new Page(1, Collections.singletonList(new Area(Collections.singletonList(
+                    new Paragraph(Collections.singletonList(new Line(words)))))));
+            int left = 5 * random.nextInt(20);
+            int top = 5 * random.nextInt(20);
+            Bounds b = new Bounds(left, top, left + 5 * random.nextInt(7), top + 5 * random.nextInt(7));
+            assertEquals(growSequentially(words, b), page.growBoundsUntilTheyStopCuttingWords(b));
+        }
+    }
+
+    @Test
+    public void testGrowZeroAreaBounds() throws Exception {
+        // the segment touches both words, but after growing by the first one it no longer cuts the second one
+        List<Word> words = new ArrayList<Word>();
+        words.add(new Word("a", new Bounds(0, 0, 10, 10)));
+        words.add(new Word("b", new Bounds(10, 5, 20, 15)));
+        Page page = new Page(1, Collections.singletonList(new Area(Collections.singletonList(
+                new Paragraph(Collections.singletonList(new Line(words)))))));
+        Bounds segment = new Bounds(10, 2, 10, 12);
+        assertEquals(new Bounds(0, 0, 10, 12), page.growBoundsUntilTheyStopCuttingWords(segment));
+        assertEquals(growSequentially(words, segment), page.growBoundsUntilTheyStopCuttingWords(segment));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        BoundsArray array = BoundsArray.of(new ArrayList<Word>());
+        assertEquals(0, array.size());
+        assertNull(array.union());
+        assertNull(BoundsArray.of(null, null).union());
+        try {
+            BoundsArray.of((Bounds) null).getLeft(0);
+            fail();
+        } catch (NullPointerException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.karols.hocr4j;
+
+import io.github.karols.hocr4j.dom.HocrParser;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CompactPageTest {
+
+    private static void assertSamePage(Page expected, Page actual) {
+        assertEquals(expected, actual);
+        assertEquals(expected.getPageNo(), actual.getPageNo());
+        assertEquals(expected.getBounds(), actual.getBounds());
+        List<Word> expectedWords = expected.getAllWords();
+        List<Word> actualWords = actual.getAllWords();
+        for (int i = 0; i < expectedWords.size(); i++) {
+            assertEquals(expectedWords.get(i).getBounds(), actualWords.get(i).getBounds());
+            assertEquals(expectedWords.get(i).isBold(), actualWords.get(i).isBold());
+            assertEquals(expectedWords.get(i).isItalic(), actualWords.get(i).isItalic());
+        }
+        List<Line> expectedLines = expected.getAllLines();
+        List<Line> actualLines = actual.getAllLines();
+        for (int i = 0; i < expectedLines.size(); i++) {
+            assertEquals(expectedLines.get(i).getBounds(), actualLines.get(i).getBounds());
+        }
+    }
+
+    @Test
+    public void testSample() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        for (Page page : HocrParser.parse(hocr)) {
+            CompactPage compact = CompactPage.of(page);
+            assertSamePage(page, compact.toPage());
+            assertEquals(page.getPageNo(), compact.getPageNo());
+            assertEquals(page.getBounds(), compact.getBounds());
+            assertEquals(page.size(), compact.getAreaCount());
+            assertEquals(page.getParagraphCount(), compact.getParagraphCount());
+            assertEquals(page.getLineCount(), compact.getLineCount());
+            assertEquals(page.getWordCount(), compact.getWordCount());
+            assertEquals(page.getAllLines(), compact.getAllLines());
+            assertEquals(page.getAllWords(), compact.getAllWords());
+            for (int i = 0; i < compact.getLineCount(); i++) {
+                assertEquals(page.getAllLines().get(i).mkString(), compact.getLineString(i));
+            }
+            for (int i = 0; i < compact.getWordCount(); i++) {
+                Word word = page.getAllWords().get(i);
+                assertEquals(word.getText(), compact.getWordText(i));
+                assertEquals(word.getBounds(), compact.getWordBounds(i));
+            }
+            assertEquals(compact, CompactPage.of(compact.toPage()));
+            assertEquals(compact.hashCode(), CompactPage.of(compact.toPage()).hashCode());
+        }
+    }
+
+    @Test
+    public void testLinesOutOfFlowOrder() throws Exception {
+        Line bottom = new Line(Arrays.asList(new Word("bottom", new Bounds(0, 100, 50, 110), false, false)),
+                new Bounds(0, 100, 50, 110));
+        Line top = new Line(Arrays.asList(new Word("top", new Bounds(0, 0, 30, 10), false, false)),
+                new Bounds(0, 0, 30, 10));
+        Line right = new Line(Arrays.asList(
+                new Word("right", new Bounds(200, 50, 250, 60), false, false),
+                new Word("side", new Bounds(260, 50, 300, 60), false, false)),
+                new Bounds(200, 50, 300, 60));
+        Line left = new Line(Arrays.asList(new Word("left", new Bounds(0, 50, 40, 60), false, false)),
+                new Bounds(0, 50, 40, 60));
+        Page page = new Page(1, Arrays.asList(
+                new Area(Arrays.asList(new Paragraph(Arrays.asList(bottom, top), null))),
+                new Area(Arrays.asList(new Paragraph(Arrays.asList(right), null),
+                        new Paragraph(Arrays.asList(left), null)))), null);
+        CompactPage compact = CompactPage.of(page);
+        assertEquals(Arrays.asList(top, left, right, bottom), page.getAllLines());
+        assertEquals(page.getAllLines(), compact.getAllLines());
+        for (int i = 0; i < compact.getLineCount(); i++) {
+            assertEquals(page.getAllLinesAsStrings().get(i), compact.getLineString(i));
+        }
+        assertEquals(bottom, compact.getLine(0));
+        assertEquals(right, compact.getLine(2));
+        assertSamePage(page, compact.toPage());
+        assertEquals(compact.getAllLines(), CompactPage.of(compact.toPage()).getAllLines());
+    }
+
+    @Test
+    public void testEdgeCases() throws Exception {
+        Line line = new Line(Arrays.asList(
+                new Word("Bold", new Bounds(0, 0, 10, 10), true, false),
+                new Word("", null, false, true),
+                new Word("żółw", new Bounds(20, 0, 30, 10), true, true)), null);
+        Line empty = new Line(Collections.<Word>emptyList(), new Bounds(0, 20, 30, 30));
+        Paragraph paragraph = new Paragraph(Arrays.asList(line, empty), null);
+        Area emptyArea = new Area(Collections.<Paragraph>emptyList(), new Bounds(0, 40, 1, 41));
+        Page page = new Page(7, Arrays.asList(new Area(Arrays.asList(paragraph)), emptyArea), null);
+        CompactPage compact = CompactPage.of(page);
+        assertSamePage(page, compact.toPage());
+        assertNull(compact.getBounds());
+        assertEquals(3, compact.getWordCount());
+        assertEquals(2, compact.getLineCount());
+        assertTrue(compact.isBold(0));
+        assertFalse(compact.isItalic(0));
+        assertTrue(compact.isItalic(1));
+        assertNull(compact.getWordBounds(1));
+        assertEquals("", compact.getWordText(1));
+        assertEquals(page.getAllLinesAsStrings(), Arrays.asList(compact.getLineString(0), compact.getLineString(1)));
+        assertTrue(page.getAllLinesAsStrings().contains("Bold  żółw"));
+        assertEquals(empty, compact.getLine(1));
+        assertEquals(emptyArea, compact.getArea(1));
+        try {
+            compact.isBold(3);
+            fail();
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+}
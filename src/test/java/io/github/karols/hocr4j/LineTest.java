@@ -1,5 +1,7 @@
 package io.github.karols.hocr4j;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -25,6 +27,13 @@ public class LineTest {
         assertEquals("a b c", createLine("a", "b", "c").mkString());
     }
 
+    @Test
+    public void testMkStringIsCached() {
+        Line line = createLine("a", "b");
+        assertSame(line.mkString(), line.mkString());
+        assertEquals(createLine("a", "b").hashCode(), line.hashCode());
+    }
+
     @Test
     public void testMkRoughString() {
         assertEquals("", createLine("a").mkRoughString());
@@ -63,6 +72,23 @@ public class LineTest {
         assertEquals("", createBoundedLine(11, 12, "a", "b", "c", "d").mkString());
     }
 
+    @Test
+    public void testTransformationsReturnUnchangedLine() {
+        Line line = createLine("a", "b", "c");
+        assertSame(line, line.createBounded(new Bounds(0, 0, 100, 100)));
+        assertSame(line, line.map(Functions.<Word>identity()));
+        assertSame(line, line.mapBounds(Functions.<Bounds>identity()));
+        Line translated = line.mapBounds(new Function<Bounds, Bounds>() {
+            public Bounds apply(Bounds b) {
+                return b.getLeft() >= 10 ? b.translate(1, 0) : b;
+            }
+        });
+        assertEquals(new Bounds(0, 0, 15, 5), translated.getBounds());
+        assertSame(line.get(0), translated.get(0));
+        assertSame(line.get(1), translated.get(1));
+        assertNotSame(line.get(2), translated.get(2));
+    }
+
     private void tbow(String word, int left, int right, String... words) {
         Bounds b = createLine(words).findBoundsOfWord(word);
         assertEquals(left, b.getLeft());
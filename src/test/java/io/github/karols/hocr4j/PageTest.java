@@ -1,7 +1,21 @@
 package io.github.karols.hocr4j;
 
+import io.github.karols.hocr4j.dom.HocrParser;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.io.Resources;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
 /**
  * Page Tester.
  *
@@ -16,5 +30,142 @@ public class PageTest {
 
     }
 
+    @Test
+    public void testFromHocrConcurrently() throws Exception {
+        String sample = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<String> documents = new ArrayList<String>();
+        for (int i = 0; i < 20; i++) {
+            documents.add(i % 3 == 1 ? "<html><body></body></html>" : sample);
+        }
+        List<Page> expected = Page.fromHocr(documents);
+        List<Page> actual = Page.fromHocr(documents, 4);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getPageNo(), actual.get(i).getPageNo());
+            assertEquals(expected.get(i).getBounds(), actual.get(i).getBounds());
+            assertEquals(expected.get(i), actual.get(i));
+        }
+        assertEquals(expected.size(), actual.get(actual.size() - 1).getPageNo());
+    }
+
+    @Test
+    public void testFromHocrWithSharedExecutor() throws Exception {
+        String sample = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<String> documents = new ArrayList<String>();
+        for (int i = 0; i < 10; i++) {
+            documents.add(i % 3 == 1 ? "<html><body></body></html>" : sample);
+        }
+        List<Page> expected = Page.fromHocr(documents);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(expected, Page.fromHocr(documents, executor));
+                assertEquals(HocrParser.parse(sample), HocrParser.parse(sample, 1, executor));
+            }
+            documents.set(4, "<body><p></p></body>");
+            try {
+                Page.fromHocr(documents, executor);
+                fail();
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+            assertEquals(expected.subList(0, 3), Page.fromHocr(documents.subList(0, 2), executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testFromHocrConcurrentlyFailing() throws Exception {
+        List<String> documents = new ArrayList<String>();
+        for (int i = 0; i < 5; i++) {
+            documents.add("<body><p></p></body>");
+        }
+        Page.fromHocr(documents, 2);
+    }
+
+    @Test
+    public void testCachedStatistics() throws Exception {
+        String sample = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        Page page = Page.fromHocr(Collections.singletonList(sample)).get(0);
+        int lines = 0, paragraphs = 0, words = 0;
+        for (Area a : page) {
+            lines += a.getLineCount();
+            paragraphs += a.getParagraphCount();
+            words += a.getWordCount();
+        }
+        for (int i = 0; i < 2; i++) {
+            assertEquals(lines, page.getLineCount());
+            assertEquals(paragraphs, page.getParagraphCount());
+            assertEquals(words, page.getWordCount());
+            assertFalse(page.isBlank());
+            assertEquals(words, page.getAllWords().size());
+            assertEquals(lines, page.getAllLines().size());
+        }
+        assertSame(page.getAllLines(), page.getAllLines());
+        assertSame(page.getAllWords(), page.getAllWords());
+        try {
+            page.getAllWords().clear();
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+        Page copy = Page.fromHocr(Collections.singletonList(sample)).get(0);
+        assertEquals(page.hashCode(), page.hashCode());
+        assertEquals(copy.hashCode(), page.hashCode());
+        assertTrue(new Page(1, Collections.<Area>emptyList(), null).isBlank());
+    }
+
+    @Test
+    public void testCreateBoundedAndCleanTinyPrintShareUnchangedParts() {
+        List<Area> areas = new ArrayList<Area>();
+        for (int a = 0; a < 3; a++) {
+            List<Word> words = new ArrayList<Word>();
+            for (int w = 0; w < 6; w++) {
+                words.add(new Word("w", new Bounds(10 * w, 100 * a, 10 * w + 8, 100 * a + (a == 2 && w == 5 ? 1 : 12))));
+            }
+            areas.add(new Area(Collections.singletonList(new Paragraph(Collections.singletonList(new Line(words))))));
+        }
+        Page page = new Page(1, areas);
+        assertSame(page, page.createBounded(page.getBounds()));
+        Page bounded = page.createBounded(new Bounds(0, 0, 1000, 50));
+        assertEquals(1, bounded.size());
+        assertSame(page.get(0), bounded.get(0));
+
+        Page cleaned = page.cleanTinyPrint();
+        assertEquals(17, cleaned.getWordCount());
+        assertSame(page.get(0), cleaned.get(0));
+        assertSame(page.get(1), cleaned.get(1));
+        assertSame(cleaned, cleaned.cleanTinyPrint());
+    }
+
+    @Test
+    public void testTransformationsShareUnchangedParts() throws Exception {
+        String sample = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        Page page = Page.fromHocr(Collections.singletonList(sample)).get(0);
+        // the parsed bounds of containers may differ from the bounds of their contents
+        Page normalized = page.map(new Function<Area, Area>() {
+            public Area apply(Area area) {
+                return area.mapBounds(Functions.<Bounds>identity());
+            }
+        });
+        assertEquals(Bounds.ofAll(normalized), normalized.getBounds());
+        assertSame(normalized, normalized.mapBounds(Functions.<Bounds>identity()));
+        assertSame(normalized, normalized.mapLines(Functions.<Line>identity()));
+
+        final Line first = normalized.getAllLines().get(0);
+        Page changed = normalized.mapLines(new Function<Line, Line>() {
+            public Line apply(Line line) {
+                return line == first ? new Line(line.getWords(), line.getBounds()) : line;
+            }
+        });
+        assertNotSame(normalized, changed);
+        assertEquals(normalized, changed);
+        assertNotSame(first, changed.getAllLines().get(0));
+        for (int i = 1; i < normalized.size(); i++) {
+            assertSame(normalized.get(i), changed.get(i));
+        }
+    }
+
 
 } 
@@ -0,0 +1,65 @@
+package io.github.karols.hocr4j;
+
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+
+import static org.junit.Assert.*;
+
+public class TitlePropertiesTest {
+
+    @Test
+    public void testParseBounds() {
+        assertEquals(new Bounds(1, 2, 3, 4), TitleProperties.parseBounds("bbox 1 2 3 4"));
+        assertEquals(new Bounds(1, 2, 3, 4), TitleProperties.parseBounds("image \"a;bbox 9 9 9 9\"; bbox 1 2 3 4; x_wconf 3"));
+        assertEquals(new Bounds(-1, 2, 30, 400), TitleProperties.parseBounds(CharBuffer.wrap("x_wconf 3;bbox  -1 2 30 400 ")));
+        assertEquals(new Bounds(1, 2, 3, 4), TitleProperties.parseBounds("<bbox 1 2 3 4>", 1, 13));
+        assertNull(TitleProperties.parseBounds(""));
+        assertNull(TitleProperties.parseBounds("x_wconf 93"));
+        assertEquals(Bounds.fromHocrTitleValue("bbox 118 140 1102 188; baseline 0 -10"),
+                TitleProperties.parseBounds("bbox 118 140 1102 188; baseline 0 -10"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testMalformedBounds() {
+        TitleProperties.parseBounds("bbox 1 2 3");
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testOverflowingBounds() {
+        TitleProperties.parseBounds("bbox 1 2 3 2147483648");
+    }
+
+    @Test
+    public void testParse() {
+        TitleProperties p = TitleProperties.parse(
+                "image \"/tmp/scan 1.png\"; bbox 0 0 2480 3508; ppageno 7; textangle 90;"
+                        + " baseline 0.015 -18; x_size 51.5; x_descenders 12; x_ascenders 13.25; x_wconf 93");
+        assertEquals("/tmp/scan 1.png", p.getImage());
+        assertTrue(p.hasBounds());
+        assertEquals(new Bounds(0, 0, 2480, 3508), p.getBounds());
+        assertTrue(p.hasPhysicalPageNumber());
+        assertEquals(7, p.getPhysicalPageNumber());
+        assertEquals(90f, p.getTextAngle(), 0f);
+        assertEquals(0.015f, p.getBaselineSlope(), 0f);
+        assertEquals(-18f, p.getBaselineOffset(), 0f);
+        assertEquals(51.5f, p.getXSize(), 0f);
+        assertEquals(12f, p.getDescenders(), 0f);
+        assertEquals(13.25f, p.getAscenders(), 0f);
+        assertTrue(p.hasConfidence());
+        assertEquals(93, p.getConfidence());
+        assertEquals(1e-5f, TitleProperties.parse("baseline 1e-5 0").getBaselineSlope(), 0f);
+    }
+
+    @Test
+    public void testParseMissing() {
+        TitleProperties p = TitleProperties.parse("x_foo 1 2; ");
+        assertFalse(p.hasBounds());
+        assertNull(p.getBounds());
+        assertFalse(p.hasConfidence());
+        assertFalse(p.hasPhysicalPageNumber());
+        assertNull(p.getImage());
+        assertTrue(Float.isNaN(p.getBaselineSlope()));
+        assertTrue(Float.isNaN(p.getXSize()));
+    }
+}
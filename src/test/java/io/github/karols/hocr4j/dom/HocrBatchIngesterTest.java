@@ -0,0 +1,147 @@
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+public class HocrBatchIngesterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File write(String path, String contents) throws Exception {
+        File file = new File(folder.getRoot(), path);
+        Files.createParentDirs(file);
+        Files.write(contents, file, Charsets.UTF_8);
+        return file;
+    }
+
+    @Test(timeout = 10000)
+    public void testIngestDirectory() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<Page> expected = HocrParser.parse(hocr);
+        for (int i = 0; i < 6; i++) {
+            write("a/" + i + ".hocr", hocr);
+            write("b/c/" + i + ".HTML", hocr);
+        }
+        File invalid = write("b/invalid.hocr", "<body><div>invalid</div></body>");
+        write("notes.txt", "<body><div>invalid</div></body>");
+        HocrBatchIngester ingester = HocrBatchIngester.start(folder.getRoot(), 3, 1);
+        try {
+            Map<File, HocrBatchIngester.Result> results = new TreeMap<File, HocrBatchIngester.Result>();
+            for (HocrBatchIngester.Result r = ingester.take(); r != null; r = ingester.take()) {
+                assertNull(results.put(r.getFile(), r));
+            }
+            assertTrue(ingester.isFinished());
+            assertNull(ingester.poll(1, TimeUnit.MILLISECONDS));
+            assertEquals(13, results.size());
+            for (HocrBatchIngester.Result r : results.values()) {
+                if (r.getFile().equals(invalid)) {
+                    assertFalse(r.isSuccess());
+                    assertTrue(r.getFailure() instanceof IllegalArgumentException);
+                    try {
+                        r.getPages();
+                        fail();
+                    } catch (IllegalStateException e) {
+                        // expected
+                    }
+                } else {
+                    assertTrue(r.isSuccess());
+                    assertEquals(expected, r.getPages());
+                }
+            }
+        } finally {
+            ingester.close();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testIngestMissingDirectory() throws Exception {
+        File missing = new File(folder.getRoot(), "missing");
+        HocrBatchIngester ingester = HocrBatchIngester.start(missing, 2, 4);
+        HocrBatchIngester.Result result = ingester.take();
+        assertEquals(missing, result.getFile());
+        assertFalse(result.isSuccess());
+        assertNull(ingester.take());
+    }
+
+    @Test(timeout = 10000)
+    public void testSymbolicLinkCycle() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        File a = write("a/1.hocr", hocr).getParentFile();
+        write("a/b/2.hocr", hocr);
+        File loop = new File(folder.getRoot(), "a/b/loop");
+        File link = new File(folder.getRoot(), "link");
+        for (File l : new File[]{loop, link}) {
+            Process ln = new ProcessBuilder("ln", "-s", a.getAbsolutePath(), l.getAbsolutePath()).start();
+            assumeTrue(ln.waitFor() == 0);
+        }
+        HocrBatchIngester ingester = HocrBatchIngester.start(folder.getRoot(), 2, 4);
+        Map<File, HocrBatchIngester.Result> results = new TreeMap<File, HocrBatchIngester.Result>();
+        for (HocrBatchIngester.Result r = ingester.take(); r != null; r = ingester.take()) {
+            assertNull(results.put(r.getFile(), r));
+        }
+        assertEquals(4, results.size());
+        assertTrue(results.get(new File(folder.getRoot(), "a/1.hocr")).isSuccess());
+        assertTrue(results.get(new File(folder.getRoot(), "a/b/2.hocr")).isSuccess());
+        assertTrue(results.get(loop).getFailure() instanceof IOException);
+        assertTrue(results.get(link).getFailure() instanceof IOException);
+    }
+
+    @Test(timeout = 10000)
+    public void testErrorInWorker() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        for (int i = 0; i < 5; i++) {
+            write(i + ".hocr", hocr);
+        }
+        final OutOfMemoryError error = new OutOfMemoryError("test");
+        HocrBatchIngester ingester = HocrBatchIngester.start(folder.getRoot(), Charsets.UTF_8, 1, 1,
+                new HocrBatchIngester.FileParser() {
+                    @Override
+                    public List<Page> parse(File file, Charset charset) throws IOException {
+                        if (file.getName().startsWith("2")) throw error;
+                        return HocrParser.parse(file, charset);
+                    }
+                });
+        int successes = 0;
+        for (HocrBatchIngester.Result r = ingester.take(); r != null; r = ingester.take()) {
+            if (r.isSuccess()) {
+                successes++;
+            } else {
+                assertEquals("2.hocr", r.getFile().getName());
+                assertSame(error, r.getFailure());
+            }
+        }
+        assertEquals(4, successes);
+        assertTrue(ingester.isFinished());
+    }
+
+    @Test(timeout = 10000)
+    public void testClose() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        for (int i = 0; i < 10; i++) {
+            write(i + ".hocr", hocr);
+        }
+        HocrBatchIngester ingester = HocrBatchIngester.start(folder.getRoot(), 2, 1);
+        assertNotNull(ingester.take());
+        ingester.close();
+        assertNull(ingester.take());
+        assertTrue(ingester.isFinished());
+    }
+}
@@ -0,0 +1,77 @@
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class HocrDocumentIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeSample() throws IOException {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        File file = folder.newFile("sample.hocr");
+        Files.write(hocr, file, Charsets.UTF_8);
+        return file;
+    }
+
+    private static void assertSamePages(List<Page> expected, HocrDocumentIndex index) throws IOException {
+        assertEquals(expected.size(), index.getPageCount());
+        for (Page page : expected) {
+            Page indexed = index.getPage(page.getPageNo());
+            assertEquals(page, indexed);
+            assertEquals(page.getPageNo(), indexed.getPageNo());
+            assertEquals(page.getBounds(), indexed.getBounds());
+        }
+    }
+
+    @Test
+    public void testBuild() throws Exception {
+        File file = writeSample();
+        List<Page> expected = HocrParser.parse(Files.toString(file, Charsets.UTF_8));
+        HocrDocumentIndex index = HocrDocumentIndex.build(file);
+        assertSamePages(expected, index);
+        byte[] bytes = Files.toByteArray(file);
+        for (int pageNo = 1; pageNo <= index.getPageCount(); pageNo++) {
+            assertEquals('<', bytes[(int) index.getPageOffset(pageNo)]);
+            assertEquals('>', bytes[(int) (index.getPageOffset(pageNo) + index.getPageLength(pageNo) - 1)]);
+        }
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        File file = writeSample();
+        List<Page> expected = HocrParser.parse(Files.toString(file, Charsets.UTF_8));
+        HocrDocumentIndex.open(file);
+        File indexFile = HocrDocumentIndex.getDefaultIndexFile(file);
+        assertTrue(indexFile.isFile());
+        assertSamePages(expected, HocrDocumentIndex.load(file, indexFile));
+        assertSamePages(expected, HocrDocumentIndex.open(file));
+    }
+
+    @Test(expected = IOException.class)
+    public void testOutdatedIndex() throws Exception {
+        File file = writeSample();
+        File indexFile = folder.newFile("sample.idx");
+        HocrDocumentIndex.build(file).save(indexFile);
+        Files.append("\n", file, Charsets.UTF_8);
+        HocrDocumentIndex.load(file, indexFile);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testMissingPage() throws Exception {
+        HocrDocumentIndex.build(writeSample()).getPage(4);
+    }
+}
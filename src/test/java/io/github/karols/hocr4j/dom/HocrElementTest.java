@@ -1,7 +1,13 @@
 package io.github.karols.hocr4j.dom;
 
+import io.github.karols.hocr4j.utils.ListWrappingQueue;
+
 import org.junit.Test;
 
+import java.io.StringReader;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+
 import static org.junit.Assert.*;
 
 /**
@@ -47,4 +53,98 @@ public class HocrElementTest {
         assertFalse(element.elements.get(2).isBlank());
     }
 
-} 
+    /**
+     * Method: getAttribute(String attributeName)
+     */
+    @Test
+    public void testAttributes() throws Exception {
+        HocrTag tag = new HocrTag("<span class='ocr_line' id=line_1 title=\"bbox 1 2 3 4\" lang=\"pl\" data-x='&amp;' checked/>",
+                Collections.<HocrElement>emptyList());
+        assertEquals("span", tag.name);
+        assertEquals("ocr_line", tag.clazz);
+        assertEquals("line_1", tag.id);
+        assertEquals("bbox 1 2 3 4", tag.title);
+        assertEquals("ocr_line", tag.getAttribute("class"));
+        assertEquals("pl", tag.getAttribute("lang"));
+        assertEquals("&", tag.getAttribute("data-x"));
+        assertEquals("checked", tag.getAttribute("checked"));
+        assertNull(tag.getAttribute("style"));
+        assertEquals(6, tag.attributes.size());
+        assertEquals("line_1", tag.attributes.get("id"));
+        try {
+            tag.attributes.put("id", "x");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testTagDoesNotRetainDocument() throws Exception {
+        StringBuilder sb = new StringBuilder("<body><span class='ocr_line' lang='en' title='bbox 1 2 3 4'>");
+        for (int i = 0; i < 10000; i++) {
+            sb.append("<span class='ocrx_word'>w</span> ");
+        }
+        String document = sb.append("</span></body>").toString();
+        HocrTag line = (HocrTag) ((HocrTag) HocrParser.createAst(document).get(0)).elements.get(0);
+        WeakReference<String> reference = new WeakReference<String>(document);
+        document = null;
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(reference.get());
+        assertEquals("en", line.getAttribute("lang"));
+        assertEquals(3, line.attributes.size());
+    }
+
+    private static String attributeName(HocrTag tag, String name) {
+        for (String key : tag.attributes.keySet()) {
+            if (key.equals(name)) return key;
+        }
+        throw new AssertionError(name);
+    }
+
+    private static void assertSharedLazyAttributeNames(HocrTag body) {
+        HocrTag div1 = (HocrTag) body.elements.get(0);
+        HocrTag div2 = (HocrTag) body.elements.get(1);
+        assertEquals("a", div1.getAttribute("data-x"));
+        assertEquals("b", div2.getAttribute("data-x"));
+        assertSame(attributeName(div1, "style"), attributeName(div2, "style"));
+        assertSame(attributeName(div1, "data-x"), attributeName(div2, "data-x"));
+    }
+
+    @Test
+    public void testSharedLazyAttributeNames() throws Exception {
+        String hocr = "<body><div style='x' data-x=a></div><div data-x=b style=y></div></body>";
+        assertSharedLazyAttributeNames((HocrTag) HocrParser.createAst(hocr).get(0));
+        assertSharedLazyAttributeNames((HocrTag) HocrParser.createAst(
+                new ListWrappingQueue<String>(HocrParser.lex(hocr))).get(0));
+        HocrReader reader = new HocrReader(new StringReader(hocr));
+        reader.next();
+        assertSharedLazyAttributeNames((HocrTag) reader.readElement());
+    }
+
+    @Test
+    public void testSharedNames() throws Exception {
+        HocrTag body = (HocrTag) HocrParser.createAst("<BODY><span class='ocr_line'><span class=\"ocrx_word\" title=x>a</span>"
+                + "<Span class='ocrx_word' title=y>b</Span></span><div class='x&#95;y'></div><div class=x_y></div></BODY>").get(0);
+        assertSame("body", body.name);
+        HocrTag line = (HocrTag) body.elements.get(0);
+        assertSame("span", line.name);
+        assertSame("ocr_line", line.clazz);
+        HocrTag word1 = (HocrTag) line.elements.get(0);
+        HocrTag word2 = (HocrTag) line.elements.get(1);
+        assertSame("span", word2.name);
+        assertSame("ocrx_word", word1.clazz);
+        assertSame("ocrx_word", word2.clazz);
+        for (String key : word1.attributes.keySet()) {
+            assertSame(key.equals("class") ? "class" : "title", key);
+        }
+        HocrTag div1 = (HocrTag) body.elements.get(1);
+        HocrTag div2 = (HocrTag) body.elements.get(2);
+        assertEquals("x_y", div1.clazz);
+        assertSame(div1.clazz, div2.clazz);
+    }
+
+}
@@ -0,0 +1,127 @@
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.junit.Test;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.Assert.*;
+
+public class HocrParseLimiterTest {
+
+    /**
+     * Executor running tasks only when asked to.
+     */
+    private static class ManualExecutor implements Executor {
+        final ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runNext() {
+            tasks.poll().run();
+        }
+    }
+
+    private static String document(int padding) {
+        StringBuilder sb = new StringBuilder("<body><div title='bbox 0 0 1 1'></div>");
+        for (int i = 0; i < padding; i++) {
+            sb.append(' ');
+        }
+        return sb.append("</body>").toString();
+    }
+
+    @Test
+    public void testSmallDocumentsGoFirst() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        HocrParseLimiter limiter = new HocrParseLimiter(2, 100, 1);
+        HocrParseOptions options = HocrParseOptions.all();
+        ListenableFuture<List<Page>> large1 = HocrParser.parseAsync(document(200), 1, options, executor, limiter);
+        ListenableFuture<List<Page>> large2 = HocrParser.parseAsync(document(200), 1, options, executor, limiter);
+        ListenableFuture<List<Page>> small1 = HocrParser.parseAsync(document(0), 1, options, executor, limiter);
+        ListenableFuture<List<Page>> small2 = HocrParser.parseAsync(document(0), 1, options, executor, limiter);
+        assertEquals(2, executor.tasks.size());
+        assertEquals(2, limiter.getRunning());
+        assertEquals(2, limiter.getWaiting());
+        executor.runNext();
+        assertTrue(large1.isDone());
+        // the freed slot goes to the waiting small document, not to the large one
+        assertEquals(2, executor.tasks.size());
+        executor.runNext();
+        assertTrue(small1.isDone());
+        executor.runNext();
+        assertTrue(small2.isDone());
+        assertFalse(large2.isDone());
+        executor.runNext();
+        assertTrue(large2.isDone());
+        assertEquals(0, limiter.getRunning());
+        assertEquals(0, limiter.getWaiting());
+        assertEquals(1, large2.get().size());
+    }
+
+    @Test
+    public void testCancelWhileWaiting() throws Exception {
+        ManualExecutor executor = new ManualExecutor();
+        HocrParseLimiter limiter = new HocrParseLimiter(1);
+        HocrParseOptions options = HocrParseOptions.all();
+        ListenableFuture<List<Page>> first = HocrParser.parseAsync(document(0), 1, options, executor, limiter);
+        ListenableFuture<List<Page>> second = HocrParser.parseAsync(document(0), 1, options, executor, limiter);
+        assertTrue(second.cancel(false));
+        executor.runNext();
+        executor.runNext();
+        assertEquals(1, first.get().size());
+        assertTrue(second.isCancelled());
+        assertEquals(0, limiter.getRunning());
+        try {
+            second.get();
+            fail();
+        } catch (CancellationException e) {
+            // expected
+        }
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        HocrParseLimiter limiter = new HocrParseLimiter(1);
+        Executor rejecting = new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                throw new RejectedExecutionException();
+            }
+        };
+        ListenableFuture<List<Page>> future =
+                HocrParser.parseAsync(document(0), 1, HocrParseOptions.all(), rejecting, limiter);
+        try {
+            future.get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+        assertEquals(0, limiter.getRunning());
+    }
+
+    @Test
+    public void testParseAsync() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<Page> expected = HocrParser.parse(hocr);
+        assertEquals(expected, HocrParser.parseAsync(hocr, MoreExecutors.sameThreadExecutor()).get());
+        try {
+            HocrParser.parseAsync("<body><div>invalid</div></body>", MoreExecutors.sameThreadExecutor()).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalArgumentException);
+        }
+    }
+}
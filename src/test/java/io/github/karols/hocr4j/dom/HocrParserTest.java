@@ -1,10 +1,41 @@
 package io.github.karols.hocr4j.dom;
 
+import io.github.karols.hocr4j.Area;
+import io.github.karols.hocr4j.Bounds;
+import io.github.karols.hocr4j.Line;
+import io.github.karols.hocr4j.Page;
+import io.github.karols.hocr4j.Paragraph;
+import io.github.karols.hocr4j.Word;
+import io.github.karols.hocr4j.utils.ListWrappingQueue;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
 import org.junit.Test;
 
-import static io.github.karols.hocr4j.dom.HocrParser.lex;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static io.github.karols.hocr4j.dom.HocrParser.*;
+import static io.github.karols.hocr4j.dom.PageDescription.describe;
 import static java.util.Arrays.asList;
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * HocrParser Tester.
@@ -32,6 +63,147 @@ public class HocrParserTest {
         assertEquals(asList("<a>", ">", "<", "</a>"), lex("<a>><</a>"));
     }
 
+    /**
+     * The recursive implementation used before <code>HocrLexer</code>.
+     */
+    private static int referenceElementLength(String hocr, int offset) {
+        if (hocr.length() <= offset) return 0;
+        if (hocr.charAt(offset) == '<') {
+            int closedAt = hocr.indexOf('>', offset);
+            int nextOpening = hocr.indexOf('<', offset + 1);
+            if (nextOpening > 0 && nextOpening < closedAt) {
+                if (hocr.charAt(offset + 1) != '<') {
+                    return 1 + referenceElementLength(hocr, offset + 1);
+                } else {
+                    return 1;
+                }
+            } else {
+                return closedAt < 0 ? hocr.length() - offset : closedAt + 1 - offset;
+            }
+        } else {
+            int openedAt = hocr.indexOf('<', offset);
+            return openedAt < 0 ? hocr.length() - offset : openedAt - offset;
+        }
+    }
+
+    @Test
+    public void testLexFuzz() throws Exception {
+        Random random = new Random(0);
+        String alphabet = "<<>>/ a!";
+        for (int n = 0; n < 20000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int i = 0; i < length; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String hocr = sb.toString();
+            List<String> expected = Lists.newArrayList();
+            for (int offset = 0; offset < hocr.length(); ) {
+                int elemLength = referenceElementLength(hocr, offset);
+                expected.add(hocr.substring(offset, offset + elemLength));
+                offset += elemLength;
+            }
+            assertEquals(hocr, expected, lex(hocr));
+            HocrTokens tokens = tokenize(CharBuffer.wrap(hocr));
+            assertEquals(hocr, expected.size(), tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                assertEquals(hocr, expected.get(i), tokens.getString(i));
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testLexAdversarial() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000000; i++) {
+            sb.append("<a");
+        }
+        sb.append('>');
+        assertEquals(1000000, tokenize(sb.toString()).size());
+        assertEquals(1000000, tokenize(CharBuffer.wrap(sb)).size());
+        sb.setCharAt(sb.length() - 1, 'a');
+        assertEquals(1, tokenize(sb.toString()).size());
+    }
+
+    /**
+     * Method: tokenize(CharSequence hocr)
+     */
+    @Test
+    public void testTokenize() throws Exception {
+        HocrTokens tokens = tokenize("<!DOCTYPE html><p a='1'>x<br/></p>");
+        assertEquals(5, tokens.size());
+        assertEquals(HocrTokens.DECLARATION, tokens.getKind(0));
+        assertEquals(HocrTokens.START_TAG, tokens.getKind(1));
+        assertEquals(HocrTokens.TEXT, tokens.getKind(2));
+        assertEquals(HocrTokens.EMPTY_TAG, tokens.getKind(3));
+        assertEquals(HocrTokens.END_TAG, tokens.getKind(4));
+        assertEquals(15, tokens.getOffset(1));
+        assertEquals(9, tokens.getLength(1));
+        assertEquals(24, tokens.getEnd(1));
+        assertEquals("<p a='1'>", tokens.getString(1));
+    }
+
+    /**
+     * Method: createAst(HocrTokens tokens)
+     */
+    @Test
+    public void testCreateAstFromTokens() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<HocrElement> expected = createAst(new ListWrappingQueue<String>(lex(hocr)));
+        List<HocrElement> actual = createAst(tokenize(CharBuffer.wrap(hocr)));
+        assertEquals(expected.toString(), actual.toString());
+    }
+
+    @Test
+    public void testTreeBuilderFuzz() throws Exception {
+        Random random = new Random(0);
+        String[] pieces = {"<p>", "<b>", "</p>", "</b>", "<br/>", "<!-- c -->", "text", " ", "<", ">", "&amp;"};
+        HocrTreeBuilder builder = new HocrTreeBuilder();
+        for (int n = 0; n < 5000; n++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                sb.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String hocr = sb.toString();
+            String expected = createAst(new ListWrappingQueue<String>(lex(hocr))).toString();
+            assertEquals(hocr, expected, builder.build(hocr).toString());
+            assertEquals(hocr, expected, builder.build(tokenize(CharBuffer.wrap(hocr))).toString());
+        }
+    }
+
+    @Test
+    public void testCreateAstDeeplyNested() throws Exception {
+        int depth = 200000;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < depth; i++) {
+            sb.append("<b>");
+        }
+        sb.append("x");
+        for (List<HocrElement> ast : asList(createAst(sb.toString()),
+                createAst(new ListWrappingQueue<String>(lex(sb.toString()))))) {
+            HocrElement e = ast.get(0);
+            for (int i = 1; i < depth; i++) {
+                e = ((HocrTag) e).elements.get(0);
+            }
+            assertEquals("x", ((HocrTag) e).elements.get(0).getRawText());
+            HocrElement root = ast.get(0);
+            assertEquals("x", root.getRawText());
+            assertNull(root.findTag("p"));
+            assertSame(root, root.findTag("b"));
+            assertEquals(depth * "<b null null></b>".length() + 1, root.mkString().length());
+            assertTrue(root.toString().startsWith(" <b>[ <b>[ <b>["));
+            assertEquals(createAst(sb.toString()).get(0).hashCode(), root.hashCode());
+        }
+        try {
+            parse(createAst("<html><body>" + sb));
+            fail();
+        } catch (IllegalArgumentException ex) {
+            // expected
+        }
+        assertTrue(parse(createAst(sb + "<body> </body>")).isEmpty());
+    }
+
     /**
      * Method: createAst(Queue<String> tokens)
      */
@@ -61,7 +233,309 @@ public class HocrParserTest {
      */
     @Test
     public void testInterpretHocr() throws Exception {
-//TODO: Test goes here... 
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        String expected = describe(parse(createAst(new ListWrappingQueue<String>(lex(hocr))), 3));
+        assertEquals(expected, describe(parse(hocr, 3)));
+        assertEquals(expected, describe(parse(CharBuffer.wrap(hocr), 3)));
+        assertEquals(expected, describe(Lists.newArrayList(pages(new StringReader(hocr), 3))));
+    }
+
+    /**
+     * Method: parse(CharSequence hocr, int startingPageNumber)
+     */
+    @Test
+    public void testInterpretInvalidHocr() throws Exception {
+        String[] invalid = {
+                "<body>text</body>",
+                "<body><p></p></body>",
+                "<body><div><div>text</div></div></body>",
+                "<body><div><div><p><span class='ocr_word'></span></p></div></div></body>",
+                "<body><div><div><p><span class='ocr_line'><u>x</u></span></p></div></div></body>",
+                "<body><div><div><p><span class='ocr_line'><b><u>x</u></b></span></p></div></div></body>",
+        };
+        for (String hocr : invalid) {
+            try {
+                parse(hocr);
+                fail(hocr);
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+        String valid = "<body> <div><div><p><span class='ocr_line'><b>x<u>y</u></b> </span></p></div></div> </body>";
+        Line line = parse(valid).get(0).get(0).get(0).get(0);
+        assertEquals(2, line.size());
+        assertEquals("xy", line.get(0).getText());
+        assertTrue(line.get(0).isBold());
+        assertEquals(" ", line.get(1).getText());
+        assertNull(line.get(1).getBounds());
+        assertTrue(parse("<html></html>").isEmpty());
+    }
+
+    private static String describeParse(String hocr, Executor executor) {
+        try {
+            return describe(executor == null ? parse(hocr, 3) : parse(hocr, 3, executor));
+        } catch (RuntimeException e) {
+            return e.getClass().getName();
+        }
+    }
+
+    /**
+     * Method: parse(CharSequence hocr, int startingPageNumber, Executor executor)
+     */
+    @Test
+    public void testParallelParse() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+            assertEquals(describe(parse(hocr, 3)), describe(parse(hocr, 3, executor)));
+            String[] pieces = {"<body>", "</body>", "<div>", "<div title='bbox 1 2 3 4'>", "</div>", "<div/>",
+                    "<p>", "</p>", "<span class='ocr_line'>", "<span class=ocrx_word title='bbox 0 0 1 1'>",
+                    "</span>", "<b>", "</b>", "x", " ", "&amp;", "<!-- -->", "<", ">"};
+            Random random = new Random(1234);
+            for (int i = 0; i < 2000; i++) {
+                StringBuilder sb = new StringBuilder();
+                int length = random.nextInt(30);
+                for (int j = 0; j < length; j++) {
+                    sb.append(pieces[random.nextInt(pieces.length)]);
+                }
+                String doc = sb.toString();
+                assertEquals(doc, describeParse(doc, null), describeParse(doc, executor));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Strips the elements below the given level, keeping the bounds.
+     */
+    private static List<Page> project(List<Page> pages, HocrParseOptions.Level level) {
+        List<Page> result = Lists.newArrayList();
+        for (Page page : pages) {
+            List<Area> areas = Lists.newArrayList();
+            for (Area area : level == HocrParseOptions.Level.PAGES ? Lists.<Area>newArrayList() : page) {
+                List<Paragraph> paragraphs = Lists.newArrayList();
+                for (Paragraph paragraph : level == HocrParseOptions.Level.AREAS ? Lists.<Paragraph>newArrayList() : area) {
+                    List<Line> lines = Lists.newArrayList();
+                    for (Line line : level == HocrParseOptions.Level.PARAGRAPHS ? Lists.<Line>newArrayList() : paragraph) {
+                        lines.add(level == HocrParseOptions.Level.LINES ? new Line(Lists.<Word>newArrayList(), line.getBounds()) : line);
+                    }
+                    paragraphs.add(new Paragraph(lines, paragraph.getBounds()));
+                }
+                areas.add(new Area(paragraphs, area.getBounds()));
+            }
+            result.add(new Page(page.getPageNo(), areas, page.getBounds()));
+        }
+        return result;
+    }
+
+    /**
+     * Method: parse(CharSequence hocr, int startingPageNumber, HocrParseOptions options)
+     */
+    @Test
+    public void testParseWithOptions() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<Page> all = parse(hocr, 3);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (HocrParseOptions.Level level : HocrParseOptions.Level.values()) {
+                HocrParseOptions options = HocrParseOptions.all().withLevel(level);
+                String expected = describe(project(all, level));
+                assertEquals(expected, describe(parse(hocr, 3, options)));
+                assertEquals(expected, describe(parse(hocr, 3, executor, options)));
+                options = options.withPageRange(4, 4);
+                expected = describe(project(all.subList(1, 2), level));
+                assertEquals(expected, describe(parse(hocr, 3, options)));
+                assertEquals(expected, describe(parse(hocr, 3, executor, options)));
+            }
+            HocrParseOptions odd = HocrParseOptions.all().withPages(new Predicate<Integer>() {
+                @Override
+                public boolean apply(Integer pageNo) {
+                    return pageNo % 2 == 1;
+                }
+            });
+            String expected = describe(asList(all.get(0), all.get(2)));
+            assertEquals(expected, describe(parse(hocr, 3, odd)));
+            assertEquals(expected, describe(parse(hocr, 3, executor, odd)));
+            assertEquals(describe(all.subList(0, 1)),
+                    describe(parse(hocr, 1, HocrParseOptions.all().withPageRange(1, 1))).replaceFirst("^1", "3"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testParseWithOptionsSkipsInvalidElements() throws Exception {
+        String hocr = "<body><div><x/></div><div title='bbox 1 2 3 4'><div><x/></div></div><div><x/></div></body>";
+        HocrParseOptions options = HocrParseOptions.all().withPageRange(2, 2).withLevel(HocrParseOptions.Level.PAGES);
+        List<Page> pages = parse(hocr, 1, options);
+        assertEquals(1, pages.size());
+        assertEquals(2, pages.get(0).getPageNo());
+        assertEquals(new Bounds(1, 2, 3, 4), pages.get(0).getBounds());
+        assertTrue(pages.get(0).isEmpty());
+        try {
+            parse(hocr, 1, HocrParseOptions.all().withPageRange(2, 2));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("<x/>", e.getMessage());
+        }
+    }
+
+    /**
+     * Method: parse(List hocr, HocrParseOptions options)
+     */
+    @Test
+    public void testParseDocumentsWithOptions() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<String> documents = asList(hocr, "<html><body></body></html>", hocr, "<body><div><x/></div></body>");
+        List<Page> pages = parse(documents, HocrParseOptions.all().withPageRange(3, 5));
+        assertEquals(3, pages.size());
+        assertEquals(describe(parse(hocr, 1).subList(2, 3)).replaceFirst("^1", "3"), describe(pages.subList(0, 1)));
+        assertEquals(describe(parse(hocr, 4).subList(0, 2)), describe(pages.subList(1, 3)));
+    }
+
+    /**
+     * Method: parseUtf8(ByteBuffer hocr, int startingPageNumber)
+     */
+    @Test
+    public void testParseUtf8() throws Exception {
+        String sample = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        String other = "<body>\u2003<div title='bbox 1 2 3 4'><div><p><span class='ocr_line'>"
+                + "<span class='ocrx_word' title='bbox&#x20;1 2 3 4'>&lt;\u00e9&amp;\ud83d\ude00</span>\u2003"
+                + "<b>\u017c\u00f3&#322;w</b></span></p></div></div>\u2003</body>";
+        for (String hocr : new String[]{sample, other}) {
+            byte[] bytes = hocr.getBytes(Charsets.UTF_8);
+            assertEquals(describe(parse(hocr, 2)), describe(parseUtf8(ByteBuffer.wrap(bytes), 2)));
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+            direct.put(new byte[]{'<', '<', '<'}).put(bytes).position(3);
+            assertEquals(describe(parse(hocr, 2)), describe(parseUtf8(direct, 2)));
+            assertEquals(3, direct.position());
+        }
+        try {
+            parseUtf8(ByteBuffer.wrap("<body><div><p>\u017c</p></div></body>".getBytes(Charsets.UTF_8)), 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("<p>", e.getMessage());
+        }
+        try {
+            parseUtf8(ByteBuffer.wrap("<body><div>\u017c</div></body>".getBytes(Charsets.UTF_8)), 1);
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("\u017c", e.getMessage());
+        }
+    }
+
+    /**
+     * Method: parse(File file)
+     */
+    @Test
+    public void testParseFile() throws Exception {
+        File file = File.createTempFile("hocr4j", ".hocr");
+        try {
+            String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+            Files.write(hocr, file, Charsets.UTF_8);
+            assertEquals(describe(parse(hocr)), describe(parse(file)));
+            Files.write(hocr, file, Charsets.UTF_16);
+            assertEquals(describe(parse(hocr)), describe(parse(file, Charsets.UTF_16)));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * Method: parseGzip(File file)
+     */
+    @Test
+    public void testParseGzip() throws Exception {
+        File file = File.createTempFile("hocr4j", ".hocr.gz");
+        try {
+            String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+            OutputStream out = new GZIPOutputStream(new FileOutputStream(file));
+            try {
+                out.write(hocr.getBytes(Charsets.UTF_8));
+            } finally {
+                out.close();
+            }
+            assertEquals(describe(parse(hocr)), describe(parseGzip(file)));
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    private static void writeZip(File file, List<String> entries) throws IOException {
+        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
+        try {
+            out.putNextEntry(new ZipEntry("pages/"));
+            out.closeEntry();
+            for (int i = 0; i < entries.size(); i++) {
+                out.putNextEntry(new ZipEntry("pages/" + i + ".hocr"));
+                out.write(entries.get(i).getBytes(Charsets.UTF_8));
+                out.closeEntry();
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Method: parseZip(File file, Charset charset, int parallelism), parseZip(File file, Charset charset, Executor executor)
+     */
+    @Test
+    public void testParseZip() throws Exception {
+        File file = File.createTempFile("hocr4j", ".zip");
+        try {
+            String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+            List<String> entries = Lists.newArrayList();
+            for (int i = 0; i < 10; i++) {
+                entries.add(i % 3 == 1 ? "<html><body></body></html>" : hocr);
+            }
+            writeZip(file, entries);
+            String expected = describe(Page.fromHocr(entries));
+            assertEquals(expected, describe(parseZip(file)));
+            assertEquals(expected, describe(parseZip(file, Charsets.UTF_8, 4)));
+            ExecutorService executor = Executors.newFixedThreadPool(2);
+            try {
+                assertEquals(expected, describe(parseZip(file, Charsets.UTF_8, executor)));
+                assertEquals(expected, describe(parseZip(file, Charsets.UTF_8, executor)));
+                entries.set(7, "<body><div>invalid</div></body>");
+                writeZip(file, entries);
+                try {
+                    parseZip(file, Charsets.UTF_8, 4);
+                    fail();
+                } catch (IllegalArgumentException e) {
+                    assertEquals("invalid", e.getMessage());
+                }
+                try {
+                    parseZip(file, Charsets.UTF_8, executor);
+                    fail();
+                } catch (IllegalArgumentException e) {
+                    assertEquals("invalid", e.getMessage());
+                }
+            } finally {
+                executor.shutdown();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    /**
+     * Method: pages(Reader reader, int startingPageNumber)
+     */
+    @Test
+    public void testPages() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        List<Page> expected = HocrParser.parse(hocr);
+        assertEquals(3, expected.size());
+        Iterator<Page> pages = HocrParser.pages(new StringReader(hocr), 5);
+        for (int i = 0; i < expected.size(); i++) {
+            assertTrue(pages.hasNext());
+            Page page = pages.next();
+            assertEquals(expected.get(i), page);
+            assertEquals(5 + i, page.getPageNo());
+        }
+        assertFalse(pages.hasNext());
+        assertFalse(HocrParser.pages(new StringReader("<html><head/></html>")).hasNext());
     }
 
 
@@ -0,0 +1,142 @@
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Page;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.github.karols.hocr4j.dom.PageDescription.describe;
+import static org.junit.Assert.*;
+
+public class HocrPushParserTest {
+
+    private static class CollectingHandler implements HocrPushParser.PageHandler {
+        final List<Page> pages = new ArrayList<Page>();
+
+        @Override
+        public void handlePage(Page page) {
+            pages.add(page);
+        }
+    }
+
+    private static String pushChars(String hocr, Random random, int maxChunk) {
+        CollectingHandler handler = new CollectingHandler();
+        HocrPushParser parser = new HocrPushParser(handler);
+        int offset = 0;
+        while (offset < hocr.length()) {
+            int end = Math.min(hocr.length(), offset + 1 + random.nextInt(maxChunk));
+            if (random.nextBoolean()) {
+                parser.feed(hocr.substring(offset, end).toCharArray());
+            } else {
+                parser.feed(hocr.subSequence(offset, end));
+            }
+            offset = end;
+        }
+        parser.finish();
+        return describe(handler.pages);
+    }
+
+    private static String pushBytes(String hocr, Random random, int maxChunk) {
+        CollectingHandler handler = new CollectingHandler();
+        HocrPushParser parser = new HocrPushParser(handler);
+        byte[] bytes = hocr.getBytes(Charsets.UTF_8);
+        int offset = 0;
+        while (offset < bytes.length) {
+            int length = Math.min(bytes.length - offset, 1 + random.nextInt(maxChunk));
+            ByteBuffer chunk = ByteBuffer.wrap(bytes, offset, length);
+            parser.feed(chunk);
+            assertFalse(chunk.hasRemaining());
+            offset += length;
+        }
+        parser.finish();
+        return describe(handler.pages);
+    }
+
+    @Test
+    public void testChunks() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        String expected = describe(HocrParser.parse(hocr));
+        Random random = new Random(0);
+        for (int maxChunk : new int[]{1, 2, 7, 100, 10000}) {
+            for (int n = 0; n < 10; n++) {
+                assertEquals(expected, pushChars(hocr, random, maxChunk));
+                assertEquals(expected, pushBytes(hocr, random, maxChunk));
+            }
+        }
+    }
+
+    @Test
+    public void testPagesAreDeliveredEarly() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        int secondPage = hocr.indexOf("<div class='ocr_page' id='page_2'");
+        int firstPageEnd = hocr.lastIndexOf("</div>", secondPage) + "</div>".length();
+        CollectingHandler handler = new CollectingHandler();
+        HocrPushParser parser = new HocrPushParser(handler);
+        parser.feed(hocr.substring(0, firstPageEnd - 1));
+        assertEquals(0, handler.pages.size());
+        parser.feed(">");
+        assertEquals(1, handler.pages.size());
+        assertEquals(1, handler.pages.get(0).getPageNo());
+        parser.feed(hocr.substring(firstPageEnd));
+        assertEquals(3, handler.pages.size());
+        parser.finish();
+        assertEquals(3, handler.pages.size());
+    }
+
+    @Test
+    public void testMalformedFuzz() throws Exception {
+        Random random = new Random(0);
+        String[] pieces = {"<body>", "</body>", "<div>", "</div>", "<p>", "</p>", "<span class='ocr_line'>",
+                "<span class='ocrx_word' title='bbox 1 2 3 4'>", "</span>", "<b>", "</b>", "<br/>",
+                "<!-- c -->", "text", " ", "<", ">", "&amp;", "ż"};
+        for (int n = 0; n < 3000; n++) {
+            StringBuilder sb = new StringBuilder("<body><div><div><p><span class='ocr_line'>");
+            int length = random.nextInt(20);
+            for (int i = 0; i < length; i++) {
+                sb.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String hocr = sb.toString();
+            String expected;
+            try {
+                expected = describe(HocrParser.parse(hocr));
+            } catch (IllegalArgumentException e) {
+                expected = e.getMessage();
+            }
+            for (int maxChunk : new int[]{1, 3, 1000}) {
+                String actual;
+                try {
+                    actual = random.nextBoolean() ? pushChars(hocr, random, maxChunk) : pushBytes(hocr, random, maxChunk);
+                } catch (IllegalArgumentException e) {
+                    actual = e.getMessage();
+                }
+                assertEquals(hocr, expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testOptions() throws Exception {
+        String hocr = Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        CollectingHandler handler = new CollectingHandler();
+        HocrPushParser parser = new HocrPushParser(Charsets.UTF_8, 1,
+                HocrParseOptions.all().withPageRange(2, 2), handler);
+        parser.feed(hocr);
+        assertEquals(1, handler.pages.size());
+        parser.feed("<div>invalid</div>");
+        parser.finish();
+        assertEquals(describe(HocrParser.parse(hocr).subList(1, 2)), describe(handler.pages));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFeedAfterFinish() throws Exception {
+        HocrPushParser parser = new HocrPushParser(new CollectingHandler());
+        parser.finish();
+        parser.feed("<body>");
+    }
+}
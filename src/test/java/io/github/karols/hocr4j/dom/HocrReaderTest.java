@@ -0,0 +1,118 @@
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Resources;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.github.karols.hocr4j.dom.HocrReader.Event.*;
+import static org.junit.Assert.*;
+
+public class HocrReaderTest {
+
+    private static List<String> readTokens(String hocr, int bufferSize) throws IOException {
+        HocrReader reader = new HocrReader(new StringReader(hocr), bufferSize);
+        List<String> result = new ArrayList<String>();
+        String previous = null;
+        while (reader.next() != END_DOCUMENT) {
+            if (reader.getEvent() == END_TAG && reader.getRawToken().equals(previous)
+                    && !previous.startsWith("</")) {
+                // second half of a self-closing tag
+                continue;
+            }
+            previous = reader.getRawToken();
+            result.add(previous);
+        }
+        return result;
+    }
+
+    private static List<String> lexWithoutDeclarations(String hocr) {
+        List<String> result = new ArrayList<String>();
+        for (String t : HocrParser.lex(hocr)) {
+            if (!(t.startsWith("<!") && t.endsWith(">"))) {
+                result.add(t);
+            }
+        }
+        return result;
+    }
+
+    private static void assertSameTokens(String hocr) throws IOException {
+        List<String> expected = lexWithoutDeclarations(hocr);
+        for (int bufferSize : new int[]{1, 2, 3, 7, 64, 8192}) {
+            assertEquals(hocr, expected, readTokens(hocr, bufferSize));
+        }
+    }
+
+    @Test
+    public void testMalformedTokens() throws Exception {
+        assertSameTokens("a");
+        assertSameTokens("<a></a>");
+        assertSameTokens("<a>a</a>");
+        assertSameTokens("<a><aa</a>");
+        assertSameTokens("<a>aa<</a>");
+        assertSameTokens("<a>a<a</a>");
+        assertSameTokens("<a><</a>");
+        assertSameTokens("<a>></a>");
+        assertSameTokens("<a><<</a>");
+        assertSameTokens("<a>><</a>");
+        assertSameTokens("<a><b");
+        assertSameTokens("<a<b");
+        assertSameTokens("<<<");
+        assertSameTokens("x<!-- comment --><br/>y");
+    }
+
+    @Test
+    public void testRandomTokens() throws Exception {
+        Random random = new Random(1234);
+        String alphabet = "<<>>/! ab";
+        for (int i = 0; i < 500; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(30);
+            for (int j = 0; j < length; j++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            assertSameTokens(sb.toString());
+        }
+    }
+
+    @Test
+    public void testSampleDocument() throws Exception {
+        assertSameTokens(Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8));
+    }
+
+    @Test
+    public void testEvents() throws Exception {
+        HocrReader reader = new HocrReader(new StringReader(
+                "<!DOCTYPE html><P class='x' title=\"bbox 1 2 3 4\"><br/>x &amp; y</p>"), 4);
+        assertEquals(START_TAG, reader.next());
+        assertEquals("p", reader.getTagName());
+        assertEquals("x", reader.getAttribute("class"));
+        assertEquals("bbox 1 2 3 4", reader.getAttribute("title"));
+        assertNull(reader.getAttribute("id"));
+        assertEquals(15, reader.getOffset());
+        assertEquals(START_TAG, reader.next());
+        assertEquals("br", reader.getTagName());
+        assertEquals(END_TAG, reader.next());
+        assertEquals("br", reader.getTagName());
+        assertEquals(TEXT, reader.next());
+        assertEquals("x &amp; y", reader.getRawToken());
+        assertEquals("x & y", reader.getText());
+        assertFalse(reader.isBlank());
+        assertEquals(END_TAG, reader.next());
+        assertEquals("p", reader.getTagName());
+        assertEquals(END_DOCUMENT, reader.next());
+        assertEquals(END_DOCUMENT, reader.next());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testTextOfTag() throws Exception {
+        HocrReader reader = new HocrReader(new StringReader("<p>"));
+        reader.next();
+        reader.getText();
+    }
+}
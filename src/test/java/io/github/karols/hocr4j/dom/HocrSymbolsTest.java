@@ -0,0 +1,51 @@
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.base.Charsets;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.*;
+
+public class HocrSymbolsTest {
+
+    @Test
+    public void testGet() throws Exception {
+        HocrSymbols symbols = new HocrSymbols();
+        String source = "<SPAN class=ocr_line> x_word X_Word";
+        assertSame("span", symbols.getLowerCase(source, 1, 5));
+        assertEquals("SPAN", symbols.get(source, 1, 5));
+        assertSame("class", symbols.get(source, 6, 11));
+        assertSame("ocr_line", symbols.get(source, 12, 20));
+        String word = symbols.get(source, 22, 28);
+        assertEquals("x_word", word);
+        assertSame(word, symbols.get(source, 22, 28));
+        assertSame(word, symbols.getLowerCase(source, 29, 35));
+        assertSame(word, symbols.get(new String("x_word")));
+        assertNotSame(word, new HocrSymbols().get(source, 22, 28));
+    }
+
+    @Test
+    public void testGetNonAscii() throws Exception {
+        HocrSymbols symbols = new HocrSymbols();
+        String name = symbols.getLowerCase("<ŻÓŁW>", 1, 5);
+        assertEquals("żółw", name);
+        ByteBuffer bytes = ByteBuffer.wrap("<żółw>".getBytes(Charsets.UTF_8));
+        Utf8Sequence utf8 = new Utf8Sequence(bytes);
+        assertSame(name, symbols.get(utf8, 1, utf8.length() - 1));
+    }
+
+    @Test
+    public void testMaxSize() throws Exception {
+        HocrSymbols symbols = new HocrSymbols();
+        for (int i = 0; i < HocrSymbols.MAX_SIZE; i++) {
+            String name = "c" + i;
+            assertEquals(name, symbols.get(name, 0, name.length()));
+        }
+        StringBuilder name = new StringBuilder("c").append(HocrSymbols.MAX_SIZE);
+        String first = symbols.get(name, 0, name.length());
+        assertEquals(name.toString(), first);
+        assertNotSame(first, symbols.get(name, 0, name.length()));
+        assertSame(symbols.get("c1", 0, 2), symbols.get("c1", 0, 2));
+    }
+}
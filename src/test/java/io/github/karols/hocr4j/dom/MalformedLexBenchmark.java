@@ -0,0 +1,32 @@
+package io.github.karols.hocr4j.dom;
+
+/**
+ * Measures tokenizing adversarial malformed markup: many stray <code>&lt;</code> characters
+ * with the only <code>&gt;</code> character at the very end.
+ * The time should grow linearly with the size of the input.
+ * <br/>
+ * Usage: <code>MalformedLexBenchmark</code>
+ */
+public class MalformedLexBenchmark {
+
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            StringBuilder line = new StringBuilder("round " + round + ":");
+            for (int n = 125000; n <= 2000000; n *= 2) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < n; i++) {
+                    sb.append("<a");
+                }
+                sb.append('>');
+                String hocr = sb.toString();
+                long t0 = System.nanoTime();
+                int tokens = HocrParser.tokenize(hocr).size();
+                long t1 = System.nanoTime();
+                line.append(String.format(" %d tokens %d ms;", tokens, (t1 - t0) / 1000000));
+            }
+            System.out.println(line);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.*;
+
+public class MappedFileReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private String readAll(File file, Charset charset, long windowSize, int chunkSize) throws IOException {
+        MappedFileReader reader = new MappedFileReader(new FileInputStream(file).getChannel(), charset, windowSize);
+        try {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[chunkSize];
+            int n;
+            while ((n = reader.read(buffer, 0, chunkSize)) >= 0) {
+                sb.append(buffer, 0, n);
+            }
+            return sb.toString();
+        } finally {
+            reader.close();
+        }
+    }
+
+    @Test
+    public void testWindowBoundaries() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 200; i++) {
+            sb.append("<span>zażółć 😀 gęślą</span>");
+        }
+        String text = sb.toString();
+        File file = folder.newFile("test.txt");
+        Files.write(text, file, Charsets.UTF_8);
+        for (long windowSize : new long[]{16, 17, 19, 1000, 1 << 20}) {
+            for (int chunkSize : new int[]{1, 2, 3, 8192}) {
+                assertEquals(windowSize + "/" + chunkSize, text, readAll(file, Charsets.UTF_8, windowSize, chunkSize));
+            }
+        }
+    }
+
+    @Test
+    public void testEmptyFile() throws Exception {
+        assertEquals("", readAll(folder.newFile("empty.txt"), Charsets.UTF_8, 16, 10));
+    }
+}
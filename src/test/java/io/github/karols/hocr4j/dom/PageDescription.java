@@ -0,0 +1,43 @@
+package io.github.karols.hocr4j.dom;
+
+import io.github.karols.hocr4j.Area;
+import io.github.karols.hocr4j.Line;
+import io.github.karols.hocr4j.Page;
+import io.github.karols.hocr4j.Paragraph;
+import io.github.karols.hocr4j.Word;
+
+import java.util.List;
+
+/**
+ * Dumps parsed pages into a string, so that the results of different parsers can be compared
+ * with readable differences.
+ */
+final class PageDescription {
+
+    private PageDescription() {
+    }
+
+    /**
+     * Describes page numbers, the bounds of all elements, and the text and style of all words.
+     */
+    static String describe(List<Page> pages) {
+        StringBuilder sb = new StringBuilder();
+        for (Page page : pages) {
+            sb.append(page.getPageNo()).append(page.getBounds()).append('\n');
+            for (Area area : page) {
+                sb.append(' ').append(area.getBounds()).append('\n');
+                for (Paragraph paragraph : area) {
+                    sb.append("  ").append(paragraph.getBounds()).append('\n');
+                    for (Line line : paragraph) {
+                        sb.append("   ").append(line.getBounds()).append('\n');
+                        for (Word word : line) {
+                            sb.append("    [").append(word.getText()).append(']').append(word.getBounds());
+                            sb.append(word.isBold()).append(word.isItalic()).append('\n');
+                        }
+                    }
+                }
+            }
+        }
+        return sb.toString();
+    }
+}
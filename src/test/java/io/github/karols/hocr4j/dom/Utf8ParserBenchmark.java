@@ -0,0 +1,42 @@
+package io.github.karols.hocr4j.dom;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Compares parsing a decoded <code>String</code> with parsing UTF-8 bytes directly.
+ * The time of decoding the bytes is included in the former.
+ * <br/>
+ * Usage: <code>Utf8ParserBenchmark [file.hocr]</code>;
+ * without arguments, the sample document from the test resources is used.
+ */
+public class Utf8ParserBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        byte[] bytes = args.length > 0
+                ? Files.toByteArray(new File(args[0]))
+                : Resources.toByteArray(Resources.getResource("sample.hocr"));
+        int iterations = Math.max(1, 100000000 / bytes.length);
+        System.out.println(bytes.length + " bytes, " + iterations + " iterations per round");
+        for (int round = 0; round < ROUNDS; round++) {
+            long checksum = 0;
+            long t0 = System.nanoTime();
+            for (int n = 0; n < iterations; n++) {
+                checksum += HocrParser.parse(new String(bytes, Charsets.UTF_8), 1).size();
+            }
+            long t1 = System.nanoTime();
+            for (int n = 0; n < iterations; n++) {
+                checksum -= HocrParser.parseUtf8(ByteBuffer.wrap(bytes), 1).size();
+            }
+            long t2 = System.nanoTime();
+            System.out.printf("round %d: String %d ms, UTF-8 bytes %d ms (checksum %d)%n",
+                    round, (t1 - t0) / 1000000, (t2 - t1) / 1000000, checksum);
+        }
+    }
+}
@@ -1,7 +1,16 @@
 package io.github.karols.hocr4j.utils;
 
+import com.google.common.base.Function;
+import com.google.common.base.Functions;
+import com.google.common.base.Predicate;
+import com.google.common.base.Predicates;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
 /**
  * Utils Tester.
  *
@@ -15,4 +24,29 @@ public class CollectionUtilsTest {
     public void test() {
     }
 
+    @Test
+    public void testListMapOrSame() {
+        List<String> xs = Arrays.asList("a", "b", "c");
+        assertSame(xs, CollectionUtils.listMapOrSame(xs, Functions.<String>identity()));
+        List<String> ys = CollectionUtils.listMapOrSame(xs, new Function<String, String>() {
+            public String apply(String x) {
+                return x.equals("b") ? "B" : x;
+            }
+        });
+        assertEquals(Arrays.asList("a", "B", "c"), ys);
+        assertSame(xs.get(2), ys.get(2));
+    }
+
+    @Test
+    public void testListFilterOrSame() {
+        List<String> xs = Arrays.asList("a", "b", "c");
+        assertSame(xs, CollectionUtils.listFilterOrSame(xs, Predicates.<String>alwaysTrue()));
+        assertEquals(Arrays.asList("a", "c"), CollectionUtils.listFilterOrSame(xs, new Predicate<String>() {
+            public boolean apply(String x) {
+                return !x.equals("b");
+            }
+        }));
+        assertEquals(Arrays.<String>asList(), CollectionUtils.listFilterOrSame(xs, Predicates.<String>alwaysFalse()));
+    }
+
 } 
@@ -0,0 +1,58 @@
+package io.github.karols.hocr4j.utils;
+
+import io.github.karols.hocr4j.dom.HocrParser;
+import io.github.karols.hocr4j.dom.HocrTokens;
+
+import com.google.common.base.Charsets;
+import com.google.common.io.Files;
+import com.google.common.io.Resources;
+import org.apache.commons.lang3.StringEscapeUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares <code>HtmlEntities.unescape</code> with <code>StringEscapeUtils.unescapeHtml4</code>
+ * on all text runs of an HOCR document.
+ * <br/>
+ * Usage: <code>HtmlEntitiesBenchmark [file.hocr]</code>;
+ * without arguments, the sample document from the test resources is used.
+ */
+public class HtmlEntitiesBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    public static void main(String[] args) throws Exception {
+        String hocr = args.length > 0
+                ? Files.toString(new File(args[0]), Charsets.UTF_8)
+                : Resources.toString(Resources.getResource("sample.hocr"), Charsets.UTF_8);
+        HocrTokens tokens = HocrParser.tokenize(hocr);
+        List<String> texts = new ArrayList<String>();
+        for (int i = 0; i < tokens.size(); i++) {
+            if (tokens.getKind(i) == HocrTokens.TEXT) {
+                texts.add(tokens.getString(i));
+            }
+        }
+        int iterations = Math.max(1, 2000000 / Math.max(1, texts.size()));
+        System.out.println(texts.size() + " text runs, " + iterations + " iterations per round");
+        for (int round = 0; round < ROUNDS; round++) {
+            long checksum = 0;
+            long t0 = System.nanoTime();
+            for (int n = 0; n < iterations; n++) {
+                for (String text : texts) {
+                    checksum += StringEscapeUtils.unescapeHtml4(text).length();
+                }
+            }
+            long t1 = System.nanoTime();
+            for (int n = 0; n < iterations; n++) {
+                for (String text : texts) {
+                    checksum -= HtmlEntities.unescape(text).length();
+                }
+            }
+            long t2 = System.nanoTime();
+            System.out.printf("round %d: unescapeHtml4 %d ms, HtmlEntities %d ms (checksum %d)%n",
+                    round, (t1 - t0) / 1000000, (t2 - t1) / 1000000, checksum);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package io.github.karols.hocr4j.utils;
+
+import org.apache.commons.lang3.StringEscapeUtils;
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+import java.util.Random;
+
+import static io.github.karols.hocr4j.utils.HtmlEntities.*;
+import static org.junit.Assert.*;
+
+public class HtmlEntitiesTest {
+
+    @Test
+    public void testUnescape() {
+        String plain = "Zażółć gęślą jaźń";
+        assertSame(plain, unescape(plain));
+        assertEquals("a & b", unescape("a &amp; b"));
+        assertEquals("\"<>\u00a0\u00e9\u03d1\u2122", unescape("&quot;&lt;&gt;&nbsp;&eacute;&thetasym;&trade;"));
+        assertEquals("AA\ud83d\ude00", unescape("&#65;&#x41;&#x1F600;"));
+        assertEquals("&amp &AMP; &#65 &#x; &#12a; &#1114112; &unknown;", unescape("&amp &AMP; &#65 &#x; &#12a; &#1114112; &unknown;"));
+        assertEquals("b & c", unescape(CharBuffer.wrap("ab &amp; cd"), 1, 10));
+    }
+
+    @Test
+    public void testSameAsCommonsLang() {
+        String[] pieces = {"&", "#", ";", "x", "X", "amp", "AMP", "lt", "nbsp", "eacute", "thetasym",
+                "0", "1", "65", "a", "F", "z", " ", "ą"};
+        Random random = new Random(1234);
+        for (int i = 0; i < 5000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int length = random.nextInt(12);
+            for (int j = 0; j < length; j++) {
+                sb.append(pieces[random.nextInt(pieces.length)]);
+            }
+            String s = sb.toString();
+            assertEquals(s, StringEscapeUtils.unescapeHtml4(s), unescape(s));
+        }
+    }
+}